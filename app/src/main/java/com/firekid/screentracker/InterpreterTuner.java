@@ -0,0 +1,157 @@
+package com.firekid.screentracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InterpreterTuner {
+
+    private static final String TAG = "InterpreterTuner";
+    private static final String PREFS_NAME = "interpreter_tuning";
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURE_RUNS = 5;
+    private static final int[] THREAD_CANDIDATES = {1, 2, 4};
+
+    public static class Config {
+        public final int numThreads;
+        public final boolean useXnnpack;
+
+        public Config(int numThreads, boolean useXnnpack) {
+            this.numThreads = numThreads;
+            this.useXnnpack = useXnnpack;
+        }
+
+        public Interpreter.Options toOptions() {
+            Interpreter.Options options = new Interpreter.Options();
+            options.setNumThreads(numThreads);
+            options.setUseXNNPACK(useXnnpack);
+            return options;
+        }
+
+        @Override
+        public String toString() {
+            return "threads=" + numThreads + " xnnpack=" + useXnnpack;
+        }
+    }
+
+    private final SharedPreferences prefs;
+
+    public InterpreterTuner(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public Config getConfig(ByteBuffer model, String modelKey) {
+        String key = modelKey + "|" + Build.FINGERPRINT;
+        if (prefs.contains(key + ".threads")) {
+            return new Config(prefs.getInt(key + ".threads", 4), prefs.getBoolean(key + ".xnnpack", true));
+        }
+
+        Config best = calibrate(model);
+        prefs.edit()
+                .putInt(key + ".threads", best.numThreads)
+                .putBoolean(key + ".xnnpack", best.useXnnpack)
+                .apply();
+        return best;
+    }
+
+    public void clear() {
+        prefs.edit().clear().apply();
+    }
+
+    private Config calibrate(ByteBuffer model) {
+        Config best = new Config(4, true);
+        long bestNanos = Long.MAX_VALUE;
+
+        for (Config candidate : candidates()) {
+            long nanos = measure(model, candidate);
+            Log.i(TAG, candidate + " median=" + (nanos / 1000) + "us");
+
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                best = candidate;
+            }
+        }
+
+        Log.i(TAG, "Selected " + best);
+        return best;
+    }
+
+    private static List<Config> candidates() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads : THREAD_CANDIDATES) {
+            if (threads <= cores) {
+                threadCounts.add(threads);
+            }
+        }
+        if (!threadCounts.contains(cores)) {
+            threadCounts.add(cores);
+        }
+
+        List<Config> configs = new ArrayList<>();
+        for (int threads : threadCounts) {
+            configs.add(new Config(threads, true));
+            configs.add(new Config(threads, false));
+        }
+        return configs;
+    }
+
+    private static long measure(ByteBuffer model, Config config) {
+        Interpreter interpreter = null;
+        try {
+            interpreter = new Interpreter(model, config.toOptions());
+
+            Object[] inputs = {allocate(interpreter.getInputTensor(0))};
+            Map<Integer, Object> outputs = new HashMap<>();
+            for (int i = 0; i < interpreter.getOutputTensorCount(); i++) {
+                outputs.put(i, allocate(interpreter.getOutputTensor(i)));
+            }
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(interpreter, inputs, outputs);
+            }
+
+            long[] samples = new long[MEASURE_RUNS];
+            for (int i = 0; i < MEASURE_RUNS; i++) {
+                long start = System.nanoTime();
+                run(interpreter, inputs, outputs);
+                samples[i] = System.nanoTime() - start;
+            }
+
+            Arrays.sort(samples);
+            return samples[MEASURE_RUNS / 2];
+        } catch (Exception e) {
+            Log.w(TAG, "Calibration failed for " + config, e);
+            return Long.MAX_VALUE;
+        } finally {
+            if (interpreter != null) {
+                interpreter.close();
+            }
+        }
+    }
+
+    private static void run(Interpreter interpreter, Object[] inputs, Map<Integer, Object> outputs) {
+        for (Object output : outputs.values()) {
+            ((ByteBuffer) output).rewind();
+        }
+        interpreter.runForMultipleInputsOutputs(inputs, outputs);
+    }
+
+    private static ByteBuffer allocate(Tensor tensor) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(tensor.numBytes());
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+}
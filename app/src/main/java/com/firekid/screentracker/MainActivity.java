@@ -20,6 +20,9 @@ public class MainActivity extends Activity {
     private Button btnStart;
     private Button btnStop;
     private Button btnSetMidpoint;
+    private Button btnExcludeRegion;
+    private Button btnActiveArea;
+    private Button btnClearRegions;
     private TextView tvStatus;
 
     private MediaProjectionManager projectionManager;
@@ -32,6 +35,9 @@ public class MainActivity extends Activity {
         btnStart = findViewById(R.id.btnStart);
         btnStop = findViewById(R.id.btnStop);
         btnSetMidpoint = findViewById(R.id.btnSetMidpoint);
+        btnExcludeRegion = findViewById(R.id.btnExcludeRegion);
+        btnActiveArea = findViewById(R.id.btnActiveArea);
+        btnClearRegions = findViewById(R.id.btnClearRegions);
         tvStatus = findViewById(R.id.tvStatus);
 
         projectionManager = (MediaProjectionManager) getSystemService(MEDIA_PROJECTION_SERVICE);
@@ -57,6 +63,27 @@ public class MainActivity extends Activity {
             }
         });
 
+        btnExcludeRegion.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                sendRegionAction("SELECT_EXCLUSION", "Drag over an area to ignore");
+            }
+        });
+
+        btnActiveArea.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                sendRegionAction("SELECT_ACTIVE_AREA", "Drag over the area to track in");
+            }
+        });
+
+        btnClearRegions.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                sendRegionAction("CLEAR_REGIONS", "Regions cleared");
+            }
+        });
+
         updateUI(false);
         checkOverlayPermission();
     }
@@ -99,6 +126,13 @@ public class MainActivity extends Activity {
         Toast.makeText(this, "Tap screen to set tracking point", Toast.LENGTH_SHORT).show();
     }
 
+    private void sendRegionAction(String action, String hint) {
+        Intent intent = new Intent(this, ScreenCaptureService.class);
+        intent.setAction(action);
+        startService(intent);
+        Toast.makeText(this, hint, Toast.LENGTH_SHORT).show();
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
@@ -129,6 +163,9 @@ public class MainActivity extends Activity {
         btnStart.setEnabled(!tracking);
         btnStop.setEnabled(tracking);
         btnSetMidpoint.setEnabled(tracking);
+        btnExcludeRegion.setEnabled(tracking);
+        btnActiveArea.setEnabled(tracking);
+        btnClearRegions.setEnabled(tracking);
     }
 
     @Override
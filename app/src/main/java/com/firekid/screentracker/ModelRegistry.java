@@ -0,0 +1,127 @@
+package com.firekid.screentracker;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ModelRegistry {
+
+    private static final String TAG = "ModelRegistry";
+    private static final String REGISTRY_FILE = "models.json";
+    public static final String TYPE_SSD = "ssd";
+
+    public static class ModelSpec {
+        public final String name;
+        public final String file;
+        public final String labelsFile;
+        public final String type;
+        public final int inputSize;
+        public final int cost;
+
+        public ModelSpec(String name, String file, String labelsFile, String type, int inputSize, int cost) {
+            this.name = name;
+            this.file = file;
+            this.labelsFile = labelsFile;
+            this.type = type;
+            this.inputSize = inputSize;
+            this.cost = cost;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + file + ", " + inputSize + "px " + type + ")";
+        }
+    }
+
+    private final List<ModelSpec> models = new ArrayList<>();
+    private ModelSpec defaultModel;
+
+    public ModelRegistry(Context context) {
+        try {
+            JSONObject root = new JSONObject(readAsset(context, REGISTRY_FILE));
+            JSONArray entries = root.getJSONArray("models");
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                String type = entry.optString("type", TYPE_SSD);
+                int inputSize = entry.optInt("inputSize", ObjectDetector.INPUT_SIZE);
+                if (!TYPE_SSD.equals(type) || inputSize <= 0) {
+                    Log.w(TAG, "Skipping model " + entry.optString("name") + ": unsupported type " + type
+                            + " or input size " + inputSize);
+                    continue;
+                }
+
+                models.add(new ModelSpec(
+                        entry.getString("name"),
+                        entry.getString("file"),
+                        entry.optString("labels", null),
+                        type,
+                        inputSize,
+                        entry.optInt("cost", 1)));
+            }
+            defaultModel = get(root.optString("default", null));
+        } catch (IOException | JSONException e) {
+            e.printStackTrace();
+        }
+
+        if (models.isEmpty()) {
+            models.add(new ModelSpec("default", ObjectDetector.MODEL_FILE, null, TYPE_SSD, ObjectDetector.INPUT_SIZE, 1));
+        }
+        if (defaultModel == null) {
+            defaultModel = models.get(0);
+        }
+    }
+
+    public ModelSpec getDefault() {
+        return defaultModel;
+    }
+
+    public ModelSpec get(String name) {
+        if (name == null) return null;
+
+        for (ModelSpec spec : models) {
+            if (spec.name.equals(name)) {
+                return spec;
+            }
+        }
+        return null;
+    }
+
+    public ModelSpec getLighter(ModelSpec current) {
+        ModelSpec lighter = null;
+        for (ModelSpec spec : models) {
+            if (spec.cost < current.cost && (lighter == null || spec.cost > lighter.cost)) {
+                lighter = spec;
+            }
+        }
+        return lighter;
+    }
+
+    public List<ModelSpec> getModels() {
+        return models;
+    }
+
+    static String readAsset(Context context, String file) throws IOException {
+        InputStream input = context.getAssets().open(file);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, "UTF-8"));
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.append(line).append('\n');
+            }
+            return builder.toString();
+        } finally {
+            input.close();
+        }
+    }
+}
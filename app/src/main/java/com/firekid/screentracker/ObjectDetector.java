@@ -2,9 +2,10 @@ package com.firekid.screentracker;
 
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
-import android.graphics.Bitmap;
 
+import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -13,51 +14,177 @@ import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
-public class ObjectDetector {
+public class ObjectDetector implements Detector {
 
-    private static final String MODEL_FILE = "model.tflite";
-    private static final int INPUT_SIZE = 300;
-    private static final float CONFIDENCE_THRESHOLD = 0.5f;
+    static final String MODEL_FILE = "model.tflite";
+    public static final int INPUT_SIZE = 300;
+    static final float CONFIDENCE_THRESHOLD = 0.5f;
 
     private Interpreter interpreter;
+    private final String modelFile;
+    private String[] labels = new String[0];
+    private InterpreterTuner.Config interpreterConfig;
     private int inputWidth;
     private int inputHeight;
+    private TensorFormat inputFormat = TensorFormat.FLOAT32;
+    private ByteBuffer inputBuffer;
+    private FramePreprocessor preprocessor;
 
-    public static class Detection {
-        public float x1, y1, x2, y2;
-        public int centerX, centerY;
-        public float confidence;
-        public int classId;
-
-        public Detection(float x1, float y1, float x2, float y2, float confidence, int classId) {
-            this.x1 = x1;
-            this.y1 = y1;
-            this.x2 = x2;
-            this.y2 = y2;
-            this.centerX = (int) ((x1 + x2) / 2);
-            this.centerY = (int) ((y1 + y2) / 2);
-            this.confidence = confidence;
-            this.classId = classId;
-        }
-    }
+    private OutputTensor outputBoxes;
+    private OutputTensor outputClasses;
+    private OutputTensor outputScores;
+    private OutputTensor outputCount;
+    private int maxDetections;
+    private final DetectionDecoder decoder = new DetectionDecoder(CONFIDENCE_THRESHOLD);
+    private PipelineMetrics metrics;
+    private final Object[] inputs = new Object[1];
+    private final java.util.Map<Integer, Object> outputs = new java.util.HashMap<>();
 
     public ObjectDetector(Context context) {
+        this(context, null);
+    }
+
+    public ObjectDetector(Context context, InterpreterTuner.Config config) {
+        this(context, MODEL_FILE, null, config);
+    }
+
+    public ObjectDetector(Context context, ModelRegistry.ModelSpec spec, InterpreterTuner.Config config) {
+        this(context, spec.file, spec.labelsFile, config);
+    }
+
+    private ObjectDetector(Context context, String modelFile, String labelsFile, InterpreterTuner.Config config) {
+        this.modelFile = modelFile;
+        if (labelsFile != null) {
+            try {
+                labels = ModelRegistry.readAsset(context, labelsFile).split("\n");
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = labels[i].trim();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
         try {
             MappedByteBuffer modelBuffer = loadModelFile(context);
-            Interpreter.Options options = new Interpreter.Options();
-            options.setNumThreads(4);
-            interpreter = new Interpreter(modelBuffer, options);
+            String modelKey = modelFile + ":" + modelBuffer.capacity();
+            interpreterConfig = config != null ? config : new InterpreterTuner(context).getConfig(modelBuffer, modelKey);
+            interpreter = new Interpreter(modelBuffer, interpreterConfig.toOptions());
 
-            int[] inputShape = interpreter.getInputTensor(0).shape();
+            Tensor inputTensor = interpreter.getInputTensor(0);
+            int[] inputShape = inputTensor.shape();
             inputHeight = inputShape[1];
             inputWidth = inputShape[2];
-        } catch (IOException e) {
+            inputFormat = toFormat(inputTensor.dataType());
+
+            if (inputFormat.isQuantized()) {
+                Tensor.QuantizationParams params = inputTensor.quantizationParams();
+                preprocessor = new FramePreprocessor(inputWidth, inputHeight, inputFormat,
+                        params.getScale(), params.getZeroPoint());
+            } else {
+                preprocessor = new FramePreprocessor(inputWidth, inputHeight, inputFormat);
+            }
+            inputBuffer = createInputBuffer();
+
+            outputBoxes = createOutput(0);
+            outputClasses = createOutput(1);
+            outputScores = createOutput(2);
+            outputCount = createOutput(3);
+            maxDetections = outputScores.size();
+
+            outputs.put(0, outputBoxes.getBuffer());
+            outputs.put(1, outputClasses.getBuffer());
+            outputs.put(2, outputScores.getBuffer());
+            outputs.put(3, outputCount.getBuffer());
+        } catch (IOException | RuntimeException e) {
             e.printStackTrace();
+            close();
+        }
+    }
+
+    private OutputTensor createOutput(int index) {
+        Tensor tensor = interpreter.getOutputTensor(index);
+        TensorFormat format = toFormat(tensor.dataType());
+        float scale = 1f;
+        int zeroPoint = 0;
+
+        if (format.isQuantized()) {
+            Tensor.QuantizationParams params = tensor.quantizationParams();
+            scale = params.getScale();
+            zeroPoint = params.getZeroPoint();
         }
+
+        return new OutputTensor(tensor.numBytes(), format, scale, zeroPoint);
+    }
+
+    private static TensorFormat toFormat(DataType dataType) {
+        switch (dataType) {
+            case UINT8:
+                return TensorFormat.UINT8;
+            case INT8:
+                return TensorFormat.INT8;
+            case FLOAT32:
+                return TensorFormat.FLOAT32;
+            default:
+                throw new IllegalArgumentException("Unsupported tensor type: " + dataType);
+        }
+    }
+
+    public void setConfidenceThreshold(float threshold) {
+        decoder.setConfidenceThreshold(threshold);
+    }
+
+    public void setAllowedClasses(int... classIds) {
+        decoder.setAllowedClasses(classIds);
+    }
+
+    public void setNmsIouThreshold(float iouThreshold) {
+        decoder.setNmsIouThreshold(iouThreshold);
+    }
+
+    public void setMaxResults(int maxResults) {
+        decoder.setMaxResults(maxResults);
+    }
+
+    public void warmUp(int runs) {
+        if (interpreter == null) return;
+
+        DetectionBuffer scratch = new DetectionBuffer(Math.max(1, maxDetections));
+        for (int i = 0; i < runs; i++) {
+            runInference(inputBuffer, 0, 0, inputWidth, inputHeight, scratch);
+        }
+    }
+
+    public void copySettingsFrom(ObjectDetector other) {
+        decoder.copySettingsFrom(other.decoder);
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public InterpreterTuner.Config getInterpreterConfig() {
+        return interpreterConfig;
+    }
+
+    public String getModelFile() {
+        return modelFile;
+    }
+
+    public String[] getLabels() {
+        return labels;
+    }
+
+    public boolean isLoaded() {
+        return interpreter != null;
+    }
+
+    public TensorFormat getInputFormat() {
+        return inputFormat;
     }
 
     private MappedByteBuffer loadModelFile(Context context) throws IOException {
-        AssetFileDescriptor fileDescriptor = context.getAssets().openFd(MODEL_FILE);
+        AssetFileDescriptor fileDescriptor = context.getAssets().openFd(modelFile);
         FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor());
         FileChannel fileChannel = inputStream.getChannel();
         long startOffset = fileDescriptor.getStartOffset();
@@ -65,72 +192,91 @@ public class ObjectDetector {
         return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
     }
 
-    public Detection[] detect(Bitmap bitmap) {
-        if (interpreter == null || bitmap == null) {
-            return new Detection[0];
+    @Override
+    public void setRegionMask(RegionMask mask) {
+        if (preprocessor != null) {
+            preprocessor.setMask(mask);
         }
+    }
 
-        Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, inputWidth, inputHeight, true);
-        ByteBuffer inputBuffer = bitmapToByteBuffer(resizedBitmap);
+    @Override
+    public void preprocess(ByteBuffer pixels, int left, int top, int width, int height,
+                           int rowStride, int pixelStride, ByteBuffer input) {
+        if (interpreter == null || pixels == null) {
+            return;
+        }
 
-        float[][][] boxes = new float[1][10][4];
-        float[][] scores = new float[1][10];
-        float[][] classes = new float[1][10];
-        float[] numDetections = new float[1];
+        preprocessor.process(pixels, left, top, width, height, rowStride, pixelStride, input);
+    }
 
-        Object[] inputs = {inputBuffer};
-        java.util.Map<Integer, Object> outputs = new java.util.HashMap<>();
-        outputs.put(0, boxes);
-        outputs.put(1, classes);
-        outputs.put(2, scores);
-        outputs.put(3, numDetections);
+    @Override
+    public FramePreprocessor createPreprocessor() {
+        return preprocessor != null ? preprocessor.copy() : null;
+    }
 
-        try {
-            interpreter.runForMultipleInputsOutputs(inputs, outputs);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new Detection[0];
+    @Override
+    public ByteBuffer createInputBuffer() {
+        if (preprocessor == null) {
+            return null;
         }
 
-        int numDet = Math.min((int) numDetections[0], 10);
-        java.util.ArrayList<Detection> detectionList = new java.util.ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize());
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
 
-        for (int i = 0; i < numDet; i++) {
-            float confidence = scores[0][i];
+    @Override
+    public int getInputWidth() {
+        return inputWidth;
+    }
 
-            if (confidence > CONFIDENCE_THRESHOLD) {
-                float ymin = boxes[0][i][0] * bitmap.getHeight();
-                float xmin = boxes[0][i][1] * bitmap.getWidth();
-                float ymax = boxes[0][i][2] * bitmap.getHeight();
-                float xmax = boxes[0][i][3] * bitmap.getWidth();
-                int classId = (int) classes[0][i];
+    @Override
+    public int getInputHeight() {
+        return inputHeight;
+    }
 
-                detectionList.add(new Detection(xmin, ymin, xmax, ymax, confidence, classId));
-            }
-        }
+    @Override
+    public int getMaxDetections() {
+        return maxDetections;
+    }
 
-        return detectionList.toArray(new Detection[0]);
+    public void detect(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                       DetectionBuffer out) {
+        preprocess(pixels, 0, 0, width, height, rowStride, pixelStride, inputBuffer);
+        runInference(inputBuffer, 0, 0, width, height, out);
     }
 
-    private ByteBuffer bitmapToByteBuffer(Bitmap bitmap) {
-        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * inputWidth * inputHeight * 3);
-        buffer.order(ByteOrder.nativeOrder());
+    @Override
+    public void runInference(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                             DetectionBuffer out) {
+        out.clear();
+        if (interpreter == null || input == null || regionWidth == 0 || regionHeight == 0) {
+            return;
+        }
 
-        int[] pixels = new int[inputWidth * inputHeight];
-        bitmap.getPixels(pixels, 0, inputWidth, 0, 0, inputWidth, inputHeight);
+        inputs[0] = input;
 
-        int pixel = 0;
-        for (int i = 0; i < inputHeight; i++) {
-            for (int j = 0; j < inputWidth; j++) {
-                int val = pixels[pixel++];
+        outputBoxes.rewind();
+        outputClasses.rewind();
+        outputScores.rewind();
+        outputCount.rewind();
 
-                buffer.putFloat(((val >> 16) & 0xFF) / 255.0f);
-                buffer.putFloat(((val >> 8) & 0xFF) / 255.0f);
-                buffer.putFloat((val & 0xFF) / 255.0f);
-            }
+        long start = System.nanoTime();
+        try {
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
         }
 
-        return buffer;
+        long decodeStart = System.nanoTime();
+        decoder.decode(outputBoxes, outputClasses, outputScores, outputCount,
+                regionLeft, regionTop, regionWidth, regionHeight, out);
+
+        if (metrics != null) {
+            metrics.inference.record(decodeStart - start);
+            metrics.decode.record(System.nanoTime() - decodeStart);
+        }
     }
 
     public void close() {
@@ -5,7 +5,9 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.os.Build;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
@@ -13,12 +15,21 @@ import android.view.WindowManager;
 
 public class OverlayView extends View {
 
+    private static final int LABEL_LENGTH = 4;
+    private static final int LABEL_OFFSET = 10;
+    private static final int PAN_TEXT_X = 20;
+    private static final int PAN_TEXT_Y = 50;
+    private static final int MIN_REGION_SIZE = 24;
+    private static final char[] PAN_PREFIX = "Pan: (".toCharArray();
+
     private WindowManager windowManager;
     private WindowManager.LayoutParams params;
 
     private Paint paintCrosshair;
     private Paint paintDetection;
     private Paint paintText;
+    private Paint paintExcluded;
+    private Paint paintActiveArea;
 
     private int screenWidth;
     private int screenHeight;
@@ -27,16 +38,60 @@ public class OverlayView extends View {
     private int midpointY = -1;
     private boolean selectingMidpoint = false;
 
-    private ObjectDetector.Detection[] detections;
+    private boolean selectingRegion = false;
+    private boolean selectingExclusion = false;
+    private final Rect selection = new Rect();
+    private int selectionStartX;
+    private int selectionStartY;
+    private RegionMask regionMask = RegionMask.NONE;
+    private final int[] regionRect = new int[4];
+
+    private float detectionScaleX = 1f;
+    private float detectionScaleY = 1f;
+    private int detectionCount = 0;
+    private float[] boxes = new float[0];
+    private char[] labels = new char[0];
+    private int[] classIds = new int[0];
+    private String[] classLabels = new String[0];
+
     private int panOffsetX = 0;
     private int panOffsetY = 0;
+    private final char[] panText = new char[32];
+    private int panTextLength = 0;
+
+    private TrackingManager panPredictor;
+    private final int[] predictedPan = new int[2];
+
+    private boolean contentDrawn = false;
+    private boolean redrawPending = false;
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            redrawPending = false;
+            if (panPredictor != null && panPredictor.isPredictive()) {
+                if (panPredictor.predictPanOffset(frameTimeNanos, predictedPan)) {
+                    setPanOffset(predictedPan[0], predictedPan[1]);
+                } else {
+                    setPanOffset(0, 0);
+                }
+            }
+            flushRedraw();
+        }
+    };
 
     private MidpointListener midpointListener;
+    private RegionListener regionListener;
+    private PipelineMetrics metrics;
+    private long pendingCaptureNanos = 0;
 
     public interface MidpointListener {
         void onMidpointSelected(int x, int y);
     }
 
+    public interface RegionListener {
+        void onRegionSelected(boolean exclusion, int left, int top, int right, int bottom);
+    }
+
     public OverlayView(Context context, int width, int height) {
         super(context);
 
@@ -62,6 +117,15 @@ public class OverlayView extends View {
         paintText.setTextSize(30);
         paintText.setAntiAlias(true);
 
+        paintExcluded = new Paint();
+        paintExcluded.setColor(0x60FF0000);
+        paintExcluded.setStyle(Paint.Style.FILL);
+
+        paintActiveArea = new Paint();
+        paintActiveArea.setColor(Color.CYAN);
+        paintActiveArea.setStrokeWidth(4);
+        paintActiveArea.setStyle(Paint.Style.STROKE);
+
         int layoutFlag;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             layoutFlag = WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
@@ -90,10 +154,13 @@ public class OverlayView extends View {
         this.midpointListener = listener;
     }
 
+    public void setRegionListener(RegionListener listener) {
+        this.regionListener = listener;
+    }
+
     public void enableMidpointSelection() {
         this.selectingMidpoint = true;
-        params.flags = WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN;
-        windowManager.updateViewLayout(this, params);
+        setTouchable(true);
         invalidate();
     }
 
@@ -101,26 +168,165 @@ public class OverlayView extends View {
         this.midpointX = x;
         this.midpointY = y;
         this.selectingMidpoint = false;
-        params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
-                WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL |
-                WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN;
-        windowManager.updateViewLayout(this, params);
+        setTouchable(false);
+        invalidate();
+    }
+
+    public void enableRegionSelection(boolean exclusion) {
+        this.selectingRegion = true;
+        this.selectingExclusion = exclusion;
+        selection.setEmpty();
+        setTouchable(true);
         invalidate();
     }
 
-    public void updateDetections(ObjectDetector.Detection[] detections) {
-        this.detections = detections;
+    public void setRegionMask(RegionMask mask) {
+        this.regionMask = mask;
         invalidate();
     }
 
+    private void setTouchable(boolean touchable) {
+        if (touchable) {
+            params.flags = WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN;
+        } else {
+            params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                    WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL |
+                    WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN;
+        }
+        windowManager.updateViewLayout(this, params);
+    }
+
+    public void setPanPredictor(TrackingManager predictor) {
+        this.panPredictor = predictor;
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setFrameTime(long captureTimeNanos) {
+        this.pendingCaptureNanos = captureTimeNanos;
+        scheduleRedraw();
+    }
+
+    public void setCaptureTransform(CaptureTransform transform) {
+        this.detectionScaleX = transform.getScaleX();
+        this.detectionScaleY = transform.getScaleY();
+    }
+
+    public void setClassLabels(String[] classLabels) {
+        this.classLabels = classLabels != null ? classLabels : new String[0];
+        scheduleRedraw();
+    }
+
+    public void updateResult(FrameResult result) {
+        updateDetections(result.detections);
+        if (panPredictor == null || !panPredictor.isPredictive()) {
+            if (result.hasPanOffset) {
+                setPanOffset(result.panOffsetX, result.panOffsetY);
+            } else {
+                setPanOffset(0, 0);
+            }
+        }
+        setFrameTime(result.captureTimeNanos);
+    }
+
+    public void updateDetections(DetectionBuffer detections) {
+        int count = detections != null ? detections.count : 0;
+        if (boxes.length < count * 4) {
+            boxes = new float[count * 4];
+            labels = new char[count * LABEL_LENGTH];
+            classIds = new int[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            int box = i * 4;
+            boxes[box] = detections.left[i] * detectionScaleX;
+            boxes[box + 1] = detections.top[i] * detectionScaleY;
+            boxes[box + 2] = detections.right[i] * detectionScaleX;
+            boxes[box + 3] = detections.bottom[i] * detectionScaleY;
+            formatConfidence(detections.confidence[i], labels, i * LABEL_LENGTH);
+            classIds[i] = detections.classId[i];
+        }
+
+        detectionCount = count;
+        scheduleRedraw();
+    }
+
     public void setPanOffset(int x, int y) {
+        if (x == panOffsetX && y == panOffsetY) return;
+
         this.panOffsetX = x;
         this.panOffsetY = y;
-        invalidate();
+
+        int length = 0;
+        if (x != 0 || y != 0) {
+            System.arraycopy(PAN_PREFIX, 0, panText, 0, PAN_PREFIX.length);
+            length = appendInt(panText, PAN_PREFIX.length, x);
+            panText[length++] = ',';
+            panText[length++] = ' ';
+            length = appendInt(panText, length, y);
+            panText[length++] = ')';
+        }
+        panTextLength = length;
+        scheduleRedraw();
+    }
+
+    private void scheduleRedraw() {
+        if (redrawPending) return;
+
+        redrawPending = true;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private void flushRedraw() {
+        boolean hasContent = detectionCount > 0 || panTextLength > 0;
+        if (hasContent || contentDrawn) {
+            contentDrawn = hasContent;
+            invalidate();
+        } else {
+            recordDisplayed(System.nanoTime());
+        }
+    }
+
+    private void recordDisplayed(long nowNanos) {
+        if (metrics != null && pendingCaptureNanos != 0) {
+            metrics.endToEnd.record(nowNanos - pendingCaptureNanos);
+        }
+        pendingCaptureNanos = 0;
+    }
+
+    private static void formatConfidence(float confidence, char[] out, int offset) {
+        int value = Math.max(0, Math.min(100, Math.round(confidence * 100)));
+        out[offset] = (char) ('0' + value / 100);
+        out[offset + 1] = '.';
+        out[offset + 2] = (char) ('0' + (value / 10) % 10);
+        out[offset + 3] = (char) ('0' + value % 10);
+    }
+
+    private static int appendInt(char[] out, int offset, int value) {
+        if (value < 0) {
+            out[offset++] = '-';
+        }
+
+        long remaining = Math.abs((long) value);
+        int start = offset;
+        do {
+            out[offset++] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+
+        for (int i = start, j = offset - 1; i < j; i++, j--) {
+            char c = out[i];
+            out[i] = out[j];
+            out[j] = c;
+        }
+        return offset;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long start = System.nanoTime();
         super.onDraw(canvas);
 
         if (selectingMidpoint) {
@@ -130,12 +336,21 @@ public class OverlayView extends View {
             canvas.drawText(text, (screenWidth - textWidth) / 2, screenHeight / 2, paintText);
         }
 
-        if (detections != null) {
-            for (ObjectDetector.Detection det : detections) {
-                canvas.drawRect(det.x1, det.y1, det.x2, det.y2, paintDetection);
-                String label = String.format("%.2f", det.confidence);
-                canvas.drawText(label, det.x1, det.y1 - 10, paintText);
+        if (selectingRegion) {
+            drawRegions(canvas);
+        }
+
+        for (int i = 0; i < detectionCount; i++) {
+            int box = i * 4;
+            canvas.drawRect(boxes[box], boxes[box + 1], boxes[box + 2], boxes[box + 3], paintDetection);
+            float labelX = boxes[box];
+            float labelY = boxes[box + 1] - LABEL_OFFSET;
+            int classId = classIds[i];
+            if (classId >= 0 && classId < classLabels.length && !classLabels[classId].isEmpty()) {
+                canvas.drawText(classLabels[classId], labelX, labelY, paintText);
+                labelX += paintText.measureText(classLabels[classId]) + LABEL_OFFSET;
             }
+            canvas.drawText(labels, i * LABEL_LENGTH, LABEL_LENGTH, labelX, labelY, paintText);
         }
 
         if (midpointX >= 0 && midpointY >= 0) {
@@ -145,14 +360,80 @@ public class OverlayView extends View {
             canvas.drawCircle(midpointX, midpointY, 8, paintCrosshair);
         }
 
-        if (panOffsetX != 0 || panOffsetY != 0) {
-            String offsetText = String.format("Pan: (%d, %d)", panOffsetX, panOffsetY);
-            canvas.drawText(offsetText, 20, 50, paintText);
+        if (panTextLength > 0) {
+            canvas.drawText(panText, 0, panTextLength, PAN_TEXT_X, PAN_TEXT_Y, paintText);
+        }
+
+        long end = System.nanoTime();
+        if (metrics != null) {
+            metrics.draw.record(end - start);
         }
+        recordDisplayed(end);
+    }
+
+    private void drawRegions(Canvas canvas) {
+        canvas.drawColor(0x40000000);
+        String text = selectingExclusion ? "DRAG TO EXCLUDE A REGION" : "DRAG TO SET THE ACTIVE AREA";
+        float textWidth = paintText.measureText(text);
+        canvas.drawText(text, (screenWidth - textWidth) / 2, screenHeight / 2, paintText);
+
+        for (int i = 0; i < regionMask.getExclusionCount(); i++) {
+            regionMask.getExclusion(i, regionRect);
+            canvas.drawRect(regionRect[0], regionRect[1], regionRect[2], regionRect[3], paintExcluded);
+        }
+        if (regionMask.getActiveArea(regionRect)) {
+            canvas.drawRect(regionRect[0], regionRect[1], regionRect[2], regionRect[3], paintActiveArea);
+        }
+
+        if (!selection.isEmpty()) {
+            canvas.drawRect(selection, selectingExclusion ? paintExcluded : paintActiveArea);
+        }
+    }
+
+    private boolean handleRegionTouch(MotionEvent event) {
+        int x = (int) event.getX();
+        int y = (int) event.getY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                selectionStartX = x;
+                selectionStartY = y;
+                selection.setEmpty();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                selection.set(Math.min(selectionStartX, x), Math.min(selectionStartY, y),
+                        Math.max(selectionStartX, x), Math.max(selectionStartY, y));
+                invalidate();
+                break;
+            case MotionEvent.ACTION_UP:
+                selection.set(Math.min(selectionStartX, x), Math.min(selectionStartY, y),
+                        Math.max(selectionStartX, x), Math.max(selectionStartY, y));
+                selectingRegion = false;
+                setTouchable(false);
+                if (selection.width() >= MIN_REGION_SIZE && selection.height() >= MIN_REGION_SIZE
+                        && regionListener != null) {
+                    regionListener.onRegionSelected(selectingExclusion,
+                            selection.left, selection.top, selection.right, selection.bottom);
+                }
+                selection.setEmpty();
+                invalidate();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                selectingRegion = false;
+                setTouchable(false);
+                selection.setEmpty();
+                invalidate();
+                break;
+        }
+        return true;
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (selectingRegion) {
+            return handleRegionTouch(event);
+        }
+
         if (selectingMidpoint && event.getAction() == MotionEvent.ACTION_DOWN) {
             int x = (int) event.getX();
             int y = (int) event.getY();
@@ -168,6 +449,9 @@ public class OverlayView extends View {
     }
 
     public void remove() {
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        redrawPending = false;
+
         try {
             if (windowManager != null) {
                 windowManager.removeView(this);
@@ -3,9 +3,12 @@ package com.firekid.screentracker;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
-import android.graphics.Bitmap;
+import android.content.IntentFilter;
 import android.graphics.PixelFormat;
 import android.hardware.display.DisplayManager;
 import android.hardware.display.VirtualDisplay;
@@ -13,25 +16,67 @@ import android.media.Image;
 import android.media.ImageReader;
 import android.media.projection.MediaProjection;
 import android.media.projection.MediaProjectionManager;
+import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
 import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.WindowManager;
 
-import java.nio.ByteBuffer;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ScreenCaptureService extends Service {
 
+    private static final String TAG = "ScreenTracker";
     private static final String CHANNEL_ID = "ScreenTrackerChannel";
     private static final int NOTIFICATION_ID = 1;
+    private static final int STATS_LOG_INTERVAL = 300;
+    private static final long NOTIFICATION_INTERVAL_MS = 1000;
+    private static final float CAPTURE_OVERSAMPLE = 2f;
+    private static final int MAX_TILE_POOL = 4;
+    private static final int WARMUP_RUNS = 2;
+    private static final int DOWNGRADE_INTERVALS = 3;
     private static boolean isRunning = false;
 
     private MediaProjection mediaProjection;
     private VirtualDisplay virtualDisplay;
     private ImageReader imageReader;
-    private Handler handler;
+    private Handler mainHandler;
+    private HandlerThread processingThread;
+    private Handler processingHandler;
+    private boolean eventDriven = true;
+    private boolean fullResolution = false;
+    private int recordFrames = 0;
+    private FrameRecorder recorder;
+    private int exportRecords = 0;
+    private boolean exportSocket = false;
+    private TrackingExporter exporter;
+    private TrackingStreamServer streamServer;
+    private volatile boolean replaying = false;
+    private Thread replayThread;
+    private int tileColumns = 0;
+    private int tileRows = 0;
+    private float tileOverlap = 0.2f;
+    private int tilePool = 0;
+    private ObjectDetector[] tileWorkers;
+    private TiledDetector tiledDetector;
+    private CaptureTransform captureTransform;
+    private RegionMask regionMask = RegionMask.NONE;
+    private boolean maskSystemBars = false;
 
     private int screenWidth;
     private int screenHeight;
@@ -39,7 +84,77 @@ public class ScreenCaptureService extends Service {
 
     private OverlayView overlayView;
     private ObjectDetector objectDetector;
+    private ModelRegistry modelRegistry;
+    private ModelRegistry.ModelSpec activeModel;
+    private ModelRegistry.ModelSpec loadingSpec;
+    private final Set<ModelRegistry.ModelSpec> failedModels = new HashSet<>();
+    private boolean loadingModel = false;
+    private long latencyBudgetNanos = 0;
+    private int overBudgetIntervals = 0;
     private TrackingManager trackingManager;
+    private TrackingStateStore stateStore;
+    private volatile FramePipeline pipeline;
+    private final AtomicBoolean resultPending = new AtomicBoolean(false);
+    private long appliedSequence = 0;
+    private boolean destroyed = false;
+    private final FrameStats frameStats = new FrameStats();
+    private final FrameScheduler scheduler = new FrameScheduler();
+    private Image deferredImage;
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    private final LatencyWindow endToEndWindow = new LatencyWindow(pipelineMetrics.endToEnd.getHistogram());
+    private PowerManager powerManager;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private BroadcastReceiver batteryReceiver;
+
+    private final Runnable notificationUpdater = new Runnable() {
+        @Override
+        public void run() {
+            if (mediaProjection == null) return;
+
+            updateNotification();
+            checkLatencyBudget();
+            stateStore.save(trackingManager, screenWidth, screenHeight);
+            mainHandler.postDelayed(this, NOTIFICATION_INTERVAL_MS);
+        }
+    };
+
+    private final Runnable pollingFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (mediaProjection == null) return;
+
+            processLatestImage(imageReader);
+            mainHandler.postDelayed(this, scheduler.getIntervalMillis());
+        }
+    };
+
+    private final Runnable resultDelivery = new Runnable() {
+        @Override
+        public void run() {
+            resultPending.set(false);
+            applyResult(System.nanoTime());
+        }
+    };
+
+    private final Runnable deferredFrame = new Runnable() {
+        @Override
+        public void run() {
+            Image image = deferredImage;
+            if (image == null) return;
+            deferredImage = null;
+
+            boolean kept = false;
+            try {
+                kept = dispatchImage(image, System.nanoTime(), -1);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                if (!kept) {
+                    image.close();
+                }
+            }
+        }
+    };
 
     public static boolean isRunning() {
         return isRunning;
@@ -56,21 +171,222 @@ public class ScreenCaptureService extends Service {
         screenHeight = metrics.heightPixels;
         screenDensity = metrics.densityDpi;
 
-        handler = new Handler(Looper.getMainLooper());
-        objectDetector = new ObjectDetector(this);
+        mainHandler = new Handler(Looper.getMainLooper());
         trackingManager = new TrackingManager();
+        stateStore = new TrackingStateStore(this);
+        stateStore.restore(trackingManager, screenWidth, screenHeight);
+        regionMask = stateStore.getRegionMask(screenWidth, screenHeight);
+        modelRegistry = new ModelRegistry(this);
+        ModelRegistry.ModelSpec savedModel = modelRegistry.get(stateStore.getModelName());
+        loadDetector(savedModel != null ? savedModel : modelRegistry.getDefault());
 
         isRunning = true;
     }
 
+    private void reloadDetector() {
+        loadDetector(activeModel != null ? activeModel : modelRegistry.getDefault());
+    }
+
+    private void loadDetector(final ModelRegistry.ModelSpec spec) {
+        loadingModel = true;
+        loadingSpec = spec;
+        final CaptureTransform transform = mediaProjection != null ? captureTransform : null;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                ObjectDetector detector = null;
+                ObjectDetector[] workers = null;
+                try {
+                    detector = new ObjectDetector(ScreenCaptureService.this, spec, null);
+                    if (detector.isLoaded()) {
+                        detector.warmUp(WARMUP_RUNS);
+                        workers = transform != null ? createTileWorkers(spec, detector, transform) : null;
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+
+                if (detector != null && !detector.isLoaded()) {
+                    detector.close();
+                    detector = null;
+                }
+                if (detector != null) {
+                    Log.i(TAG, "Model " + spec + " ready in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                }
+                postDetector(spec, detector, workers);
+            }
+        }, "ScreenTrackerModelLoad").start();
+    }
+
+    private void postDetector(final ModelRegistry.ModelSpec spec, final ObjectDetector detector,
+                              final ObjectDetector[] workers) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (detector != null) {
+                    onDetectorReady(spec, detector, workers);
+                } else {
+                    onDetectorFailed(spec);
+                }
+            }
+        });
+    }
+
+    private void onDetectorFailed(ModelRegistry.ModelSpec spec) {
+        loadingModel = false;
+        loadingSpec = null;
+        failedModels.add(spec);
+        if (destroyed) return;
+
+        ModelRegistry.ModelSpec fallback = modelRegistry.getDefault();
+        if (objectDetector == null && !failedModels.contains(fallback)) {
+            Log.e(TAG, "Model " + spec + " failed to load, falling back to " + fallback);
+            loadDetector(fallback);
+        } else {
+            Log.e(TAG, "Model " + spec + " failed to load, keeping " + activeModel);
+        }
+    }
+
+    private void onDetectorReady(ModelRegistry.ModelSpec spec, ObjectDetector detector, ObjectDetector[] workers) {
+        loadingModel = false;
+        loadingSpec = null;
+        if (destroyed) {
+            closeTileWorkers(workers);
+            detector.close();
+            return;
+        }
+
+        ObjectDetector previousDetector = objectDetector;
+        ObjectDetector[] previousWorkers = tileWorkers;
+        TiledDetector previousTiled = tiledDetector;
+        FramePipeline previousPipeline = pipeline;
+        if (previousPipeline != null) {
+            previousPipeline.setExporter(null);
+        }
+
+        activeModel = spec;
+        objectDetector = detector;
+        objectDetector.setMetrics(pipelineMetrics);
+        tileWorkers = null;
+        tiledDetector = null;
+        stateStore.saveModelName(spec.name);
+        if (Math.max(detector.getInputWidth(), detector.getInputHeight()) != spec.inputSize) {
+            Log.w(TAG, "Model " + spec + " has a " + detector.getInputWidth() + "x" + detector.getInputHeight()
+                    + " input, capture is sized for " + spec.inputSize);
+        }
+        if (overlayView != null) {
+            overlayView.setClassLabels(detector.getLabels());
+        }
+
+        if (mediaProjection == null) {
+            closeTileWorkers(workers);
+        } else if (previousPipeline != null) {
+            if (tileColumns > 0 && workers == null) {
+                Log.w(TAG, "Tile workers for " + spec + " not loaded, swapping to untiled inference");
+            }
+            createPipeline(workers);
+        } else {
+            startPipeline(workers);
+        }
+        applyDetectorSettings();
+
+        if (previousDetector != null) {
+            retireDetector(previousPipeline, previousTiled, previousWorkers, previousDetector);
+        }
+    }
+
+    private void switchModel(ModelRegistry.ModelSpec spec) {
+        if (spec == null) {
+            Log.w(TAG, "Model switch ignored for an unknown model");
+            return;
+        }
+        if (spec == activeModel) return;
+        if (failedModels.contains(spec)) {
+            Log.w(TAG, "Model switch ignored for " + spec + ", which failed to load");
+            return;
+        }
+        if (loadingModel || replaying) {
+            Log.w(TAG, "Model switch ignored while another model is loading or a replay is running");
+            return;
+        }
+
+        Log.i(TAG, "Switching model " + activeModel + " -> " + spec);
+        loadDetector(spec);
+    }
+
+    private void retireDetector(final FramePipeline oldPipeline, final TiledDetector oldTiled,
+                                final ObjectDetector[] oldWorkers, final ObjectDetector oldDetector) {
+        final Thread retire = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (oldPipeline != null) {
+                    oldPipeline.stop();
+                }
+                if (oldTiled != null) {
+                    oldTiled.close();
+                }
+                closeTileWorkers(oldWorkers);
+                oldDetector.close();
+            }
+        }, "ScreenTrackerModelRetire");
+
+        if (processingHandler != null) {
+            processingHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    retire.start();
+                }
+            });
+        } else {
+            retire.start();
+        }
+    }
+
+    private void checkLatencyBudget() {
+        if (latencyBudgetNanos <= 0 || activeModel == null || loadingModel) return;
+
+        if (endToEndWindow.getFrames() == 0 || endToEndWindow.getP50Nanos() <= latencyBudgetNanos) {
+            overBudgetIntervals = 0;
+            return;
+        }
+        if (++overBudgetIntervals < DOWNGRADE_INTERVALS) return;
+
+        overBudgetIntervals = 0;
+        ModelRegistry.ModelSpec lighter = modelRegistry.getLighter(activeModel);
+        if (lighter != null) {
+            Log.i(TAG, String.format(Locale.US, "p50 %.1fms over the %dms budget, downgrading",
+                    endToEndWindow.getP50Nanos() / 1e6, latencyBudgetNanos / 1_000_000));
+            switchModel(lighter);
+        }
+    }
+
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (intent != null) {
             String action = intent.getAction();
 
             if ("START".equals(action)) {
+                if (replaying) {
+                    Log.w(TAG, "Capture start ignored while a replay is running");
+                    return START_STICKY;
+                }
+
                 int resultCode = intent.getIntExtra("resultCode", -1);
                 Intent data = intent.getParcelableExtra("data");
+                eventDriven = intent.getBooleanExtra("eventDriven", true);
+                fullResolution = intent.getBooleanExtra("fullResolution", false);
+                recordFrames = intent.getIntExtra("recordFrames", 0);
+                tileColumns = intent.getIntExtra("tileColumns", 0);
+                tileRows = intent.getIntExtra("tileRows", 0);
+                tileOverlap = intent.getFloatExtra("tileOverlap", 0.2f);
+                tilePool = intent.getIntExtra("tilePool", 0);
+                trackingManager.setPredictive(intent.getBooleanExtra("predictive", false));
+                latencyBudgetNanos = intent.getIntExtra("latencyBudgetMs", 0) * 1_000_000L;
+                maskSystemBars = intent.getBooleanExtra("maskSystemBars", false);
+                exportRecords = intent.getIntExtra("exportRecords", 0);
+                exportSocket = intent.getBooleanExtra("exportSocket", false);
+                configureDetector(intent);
                 if (resultCode != -1 && data != null) {
                     startForeground(NOTIFICATION_ID, createNotification());
                     startCapture(resultCode, data);
@@ -82,124 +398,481 @@ public class ScreenCaptureService extends Service {
                 if (overlayView != null) {
                     overlayView.enableMidpointSelection();
                 }
+            } else if ("SELECT_EXCLUSION".equals(action) || "SELECT_ACTIVE_AREA".equals(action)) {
+                if (overlayView != null) {
+                    overlayView.enableRegionSelection("SELECT_EXCLUSION".equals(action));
+                }
+            } else if ("CLEAR_REGIONS".equals(action)) {
+                updateRegionMask(RegionMask.NONE);
+            } else if ("CONFIGURE".equals(action)) {
+                configureDetector(intent);
+            } else if ("CLEAR_SETTINGS".equals(action)) {
+                stateStore.clearDetectorSettings();
+                applyDetectorSettings();
+            } else if ("SWITCH_MODEL".equals(action)) {
+                switchModel(modelRegistry.get(intent.getStringExtra("model")));
+            } else if ("DUMP_STATS".equals(action)) {
+                dumpStats();
+            } else if ("REPLAY".equals(action)) {
+                replay(intent.getStringExtra("path"), intent.getBooleanExtra("realTime", false));
             }
         }
 
         return START_STICKY;
     }
 
+    private void configureDetector(Intent intent) {
+        stateStore.saveDetectorSettings(intent);
+        applyDetectorSettings();
+    }
+
+    private void applyDetectorSettings() {
+        if (objectDetector == null) return;
+
+        stateStore.applyDetectorSettings(objectDetector);
+        if (tileWorkers != null) {
+            for (int i = 1; i < tileWorkers.length; i++) {
+                tileWorkers[i].copySettingsFrom(objectDetector);
+            }
+        }
+    }
+
+    private Detector createDetector(ObjectDetector[] workers) {
+        if (workers == null) {
+            return objectDetector;
+        }
+
+        tileWorkers = workers;
+        int rows = getTileRows(captureTransform);
+        tiledDetector = new TiledDetector(tileWorkers, tileColumns, rows, tileOverlap);
+        Log.i(TAG, "Tiled inference " + tileColumns + "x" + rows + " overlap=" + tileOverlap
+                + " pool=" + tileWorkers.length + " " + tileWorkers[tileWorkers.length - 1].getInterpreterConfig());
+        return tiledDetector;
+    }
+
+    private int getTileRows(CaptureTransform transform) {
+        return tileRows > 0 ? tileRows
+                : Math.max(1, Math.round(tileColumns * transform.captureHeight / (float) transform.captureWidth));
+    }
+
+    private ObjectDetector[] createTileWorkers(ModelRegistry.ModelSpec spec, ObjectDetector primary,
+                                               CaptureTransform transform) {
+        if (tileColumns <= 0) {
+            return null;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = tilePool > 0 ? tilePool
+                : Math.min(Math.min(cores, MAX_TILE_POOL), tileColumns * getTileRows(transform));
+        InterpreterTuner.Config base = primary.getInterpreterConfig();
+        InterpreterTuner.Config workerConfig = new InterpreterTuner.Config(
+                Math.max(1, cores / poolSize), base == null || base.useXnnpack);
+
+        ObjectDetector[] workers = new ObjectDetector[poolSize];
+        workers[0] = primary;
+        for (int i = 1; i < poolSize; i++) {
+            ObjectDetector worker = new ObjectDetector(this, spec, workerConfig);
+            if (!worker.isLoaded()) {
+                Log.w(TAG, "Tile worker " + i + " failed to load, pool reduced to " + i);
+                worker.close();
+                return Arrays.copyOf(workers, i);
+            }
+            worker.setMetrics(pipelineMetrics);
+            worker.copySettingsFrom(primary);
+            workers[i] = worker;
+        }
+        return workers;
+    }
+
+    private static void closeTileWorkers(ObjectDetector[] workers) {
+        if (workers == null) return;
+
+        for (int i = 1; i < workers.length; i++) {
+            workers[i].close();
+        }
+    }
+
     private void startCapture(int resultCode, Intent data) {
         MediaProjectionManager manager = (MediaProjectionManager) getSystemService(MEDIA_PROJECTION_SERVICE);
         mediaProjection = manager.getMediaProjection(resultCode, data);
 
-        imageReader = ImageReader.newInstance(screenWidth, screenHeight, PixelFormat.RGBA_8888, 2);
+        if (fullResolution) {
+            captureTransform = CaptureTransform.identity(screenWidth, screenHeight);
+        } else {
+            ModelRegistry.ModelSpec spec = loadingSpec != null ? loadingSpec : activeModel;
+            int modelSize = spec != null ? spec.inputSize : modelRegistry.getDefault().inputSize;
+            captureTransform = CaptureTransform.forModel(screenWidth, screenHeight, modelSize, CAPTURE_OVERSAMPLE);
+        }
+
+        int captureWidth = captureTransform.captureWidth;
+        int captureHeight = captureTransform.captureHeight;
+        int captureDensity = Math.max(1, Math.round(screenDensity * captureWidth / (float) screenWidth));
+        imageReader = ImageReader.newInstance(captureWidth, captureHeight, PixelFormat.RGBA_8888, 3);
+        if (recordFrames > 0) {
+            startRecording(captureWidth, captureHeight);
+        }
+        if (exportRecords > 0) {
+            startExport();
+        }
 
         virtualDisplay = mediaProjection.createVirtualDisplay(
                 "ScreenTracker",
-                screenWidth, screenHeight, screenDensity,
+                captureWidth, captureHeight, captureDensity,
                 DisplayManager.VIRTUAL_DISPLAY_FLAG_AUTO_MIRROR,
                 imageReader.getSurface(),
-                null, handler
+                null, mainHandler
         );
 
         overlayView = new OverlayView(this, screenWidth, screenHeight);
+        overlayView.setCaptureTransform(captureTransform);
+        overlayView.setMetrics(pipelineMetrics);
+        overlayView.setPanPredictor(trackingManager);
+        if (objectDetector != null) {
+            overlayView.setClassLabels(objectDetector.getLabels());
+        }
         overlayView.setMidpointListener(new OverlayView.MidpointListener() {
             @Override
             public void onMidpointSelected(int x, int y) {
                 trackingManager.setMidpoint(x, y);
+                if (pipeline != null) {
+                    pipeline.onMidpointChanged();
+                }
                 overlayView.setMidpoint(x, y);
+                stateStore.save(trackingManager, screenWidth, screenHeight);
             }
         });
 
+        overlayView.setRegionMask(regionMask);
+        overlayView.setRegionListener(new OverlayView.RegionListener() {
+            @Override
+            public void onRegionSelected(boolean exclusion, int left, int top, int right, int bottom) {
+                updateRegionMask(exclusion
+                        ? regionMask.withExclusion(left, top, right, bottom)
+                        : regionMask.withActiveArea(left, top, right, bottom));
+            }
+        });
+
+        int[] midpoint = trackingManager.getMidpoint();
+        if (midpoint != null) {
+            overlayView.setMidpoint(midpoint[0], midpoint[1]);
+        }
+
+        if (objectDetector != null) {
+            startPipeline(null);
+        } else if (!loadingModel) {
+            reloadDetector();
+        }
         startProcessing();
     }
 
-    private void startProcessing() {
-        handler.post(new Runnable() {
+    private void startPipeline(ObjectDetector[] workers) {
+        if (tileColumns > 0 && workers == null) {
+            loadTileWorkers();
+        } else {
+            createPipeline(workers);
+        }
+    }
+
+    private void loadTileWorkers() {
+        loadingModel = true;
+        final ModelRegistry.ModelSpec spec = activeModel;
+        final ObjectDetector primary = objectDetector;
+        final CaptureTransform transform = captureTransform;
+        new Thread(new Runnable() {
             @Override
             public void run() {
-                if (mediaProjection == null) return;
-
-                try {
-                    Image image = imageReader.acquireLatestImage();
-                    if (image != null) {
-                        Bitmap bitmap = imageToBitmap(image);
-                        if (bitmap != null) {
-                            processFrame(bitmap);
-                            bitmap.recycle();
+                final ObjectDetector[] workers = createTileWorkers(spec, primary, transform);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        loadingModel = false;
+                        if (destroyed || mediaProjection == null || pipeline != null
+                                || objectDetector != primary || captureTransform != transform) {
+                            closeTileWorkers(workers);
+                            return;
                         }
-                        image.close();
+
+                        createPipeline(workers);
+                        applyDetectorSettings();
                     }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+                });
+            }
+        }, "ScreenTrackerTileLoad").start();
+    }
 
-                handler.postDelayed(this, 66);
+    private void createPipeline(ObjectDetector[] workers) {
+        FramePipeline created = new FramePipeline(createDetector(workers), trackingManager, new FramePipeline.Listener() {
+            @Override
+            public void onFrameResult(long sequence) {
+                deliverResult();
             }
-        });
+        }, eventDriven);
+        created.setScheduler(scheduler);
+        created.setCaptureTransform(captureTransform);
+        created.setMetrics(pipelineMetrics);
+        created.setRegionMask(getCaptureRegionMask());
+        created.setExporter(exporter);
+        created.start();
+        appliedSequence = 0;
+        resultPending.set(false);
+        pipeline = created;
+    }
+
+    private void updateRegionMask(RegionMask mask) {
+        regionMask = mask;
+        stateStore.saveRegionMask(mask, screenWidth, screenHeight);
+        if (overlayView != null) {
+            overlayView.setRegionMask(mask);
+        }
+
+        FramePipeline current = pipeline;
+        if (current != null) {
+            current.setRegionMask(getCaptureRegionMask());
+        }
+    }
+
+    private RegionMask getCaptureRegionMask() {
+        RegionMask mask = regionMask;
+        if (maskSystemBars) {
+            int[] area = {0, 0, screenWidth, screenHeight};
+            mask.getActiveArea(area);
+            int top = Math.max(area[1], getSystemDimension("status_bar_height"));
+            int bottom = Math.min(area[3], screenHeight - getSystemDimension("navigation_bar_height"));
+            if (bottom > top) {
+                mask = mask.withActiveArea(area[0], top, area[2], bottom);
+            }
+        }
+        return mask.isEmpty() ? null : mask.toCapture(captureTransform);
+    }
+
+    private int getSystemDimension(String name) {
+        int id = getResources().getIdentifier(name, "dimen", "android");
+        return id > 0 ? getResources().getDimensionPixelSize(id) : 0;
+    }
+
+    private void startProcessing() {
+        startPowerMonitoring();
+        mainHandler.postDelayed(notificationUpdater, NOTIFICATION_INTERVAL_MS);
+
+        if (eventDriven) {
+            processingThread = new HandlerThread("ScreenTrackerProcessing", Process.THREAD_PRIORITY_DISPLAY);
+            processingThread.start();
+            processingHandler = new Handler(processingThread.getLooper());
+
+            imageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+                @Override
+                public void onImageAvailable(ImageReader reader) {
+                    processLatestImage(reader);
+                }
+            }, processingHandler);
+        } else {
+            mainHandler.post(pollingFrame);
+        }
     }
 
-    private Bitmap imageToBitmap(Image image) {
+    private void processLatestImage(ImageReader reader) {
         try {
-            Image.Plane[] planes = image.getPlanes();
-            ByteBuffer buffer = planes[0].getBuffer();
-            int pixelStride = planes[0].getPixelStride();
-            int rowStride = planes[0].getRowStride();
-            int rowPadding = rowStride - pixelStride * screenWidth;
-
-            Bitmap bitmap = Bitmap.createBitmap(
-                    screenWidth + rowPadding / pixelStride,
-                    screenHeight,
-                    Bitmap.Config.ARGB_8888
-            );
-            bitmap.copyPixelsFromBuffer(buffer);
-            return bitmap;
+            long start = System.nanoTime();
+            Image image = reader.acquireLatestImage();
+            if (image == null) return;
+
+            boolean kept = false;
+            try {
+                pipelineMetrics.onCaptured();
+                Image.Plane plane = image.getPlanes()[0];
+                long acquired = System.nanoTime();
+
+                if (recorder != null && !recorder.record(plane.getBuffer(), image.getWidth(), image.getHeight(),
+                        plane.getRowStride(), plane.getPixelStride(), image.getTimestamp())) {
+                    stopRecording();
+                }
+
+                dropDeferredImage();
+                kept = dispatchImage(image, start, acquired - start);
+            } finally {
+                if (!kept) {
+                    image.close();
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            return null;
         }
     }
 
-    private void processFrame(Bitmap bitmap) {
-        ObjectDetector.Detection[] detections = objectDetector.detect(bitmap);
+    private boolean dispatchImage(Image image, long start, long captureNanos) {
+        FramePipeline current = pipeline;
+        if (current == null) {
+            pipelineMetrics.onSkipped();
+            return false;
+        }
+
+        if (eventDriven && !scheduler.shouldProcess(start)) {
+            deferredImage = image;
+            long delayMillis = (scheduler.getDelayNanos(start) + 999_999L) / 1_000_000L;
+            processingHandler.removeCallbacks(deferredFrame);
+            processingHandler.postDelayed(deferredFrame, Math.max(1, delayMillis));
+            return true;
+        }
+
+        Image.Plane plane = image.getPlanes()[0];
+        if (captureNanos >= 0) {
+            pipelineMetrics.capture.record(captureNanos);
+        }
+        current.submitFrame(plane.getBuffer(), image.getWidth(), image.getHeight(),
+                plane.getRowStride(), plane.getPixelStride(), image.getTimestamp());
+        return false;
+    }
+
+    private void dropDeferredImage() {
+        if (deferredImage == null) return;
+
+        processingHandler.removeCallbacks(deferredFrame);
+        deferredImage.close();
+        deferredImage = null;
+        pipelineMetrics.onSkipped();
+    }
+
+    private void deliverResult() {
+        if (!eventDriven) {
+            applyResult(System.nanoTime());
+            return;
+        }
+        if (!resultPending.compareAndSet(false, true)) return;
+
+        mainHandler.post(resultDelivery);
+    }
+
+    private void applyResult(long mainThreadStartNanos) {
+        FramePipeline current = pipeline;
+        if (current == null) return;
+
+        FrameResult result = current.acquireResult();
+        if (result.sequence == 0 || result.sequence == appliedSequence) return;
+        appliedSequence = result.sequence;
 
         if (overlayView != null) {
-            overlayView.updateDetections(detections);
+            overlayView.updateResult(result);
         }
 
-        if (trackingManager.hasMidpoint() && detections.length > 0) {
-            ObjectDetector.Detection closest = findClosestDetection(detections);
-            if (closest != null) {
-                int[] offset = trackingManager.calculatePanOffset(closest.centerX, closest.centerY);
-                if (overlayView != null) {
-                    overlayView.setPanOffset(offset[0], offset[1]);
+        long now = System.nanoTime();
+        frameStats.recordFrame(now - result.captureTimeNanos, now - mainThreadStartNanos);
+        scheduler.onFrameLatency(now - result.captureTimeNanos);
+        if (frameStats.getFrameCount() % STATS_LOG_INTERVAL == 0) {
+            Log.i(TAG, (eventDriven ? "pipelined " : "polling ") + frameStats.summary()
+                    + " | " + pipelineMetrics.summary() + " | " + current.getStatsSummary());
+        }
+    }
+
+    private void startPowerMonitoring() {
+        powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        if (powerManager != null) {
+            scheduler.setPowerSave(powerManager.isPowerSaveMode());
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                thermalListener = new PowerManager.OnThermalStatusChangedListener() {
+                    @Override
+                    public void onThermalStatusChanged(int status) {
+                        scheduler.setThermalFactor(getThermalFactor(status));
+                        Log.i(TAG, "Thermal status " + status + ", interval " + scheduler.getIntervalMillis() + "ms");
+                    }
+                };
+                scheduler.setThermalFactor(getThermalFactor(powerManager.getCurrentThermalStatus()));
+                powerManager.addThermalStatusListener(thermalListener);
+            }
+        }
+
+        batteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+                int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+                boolean plugged = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+                if (level >= 0 && scale > 0) {
+                    scheduler.setBattery(level * 100 / scale, plugged);
+                }
+                if (powerManager != null) {
+                    scheduler.setPowerSave(powerManager.isPowerSaveMode());
                 }
             }
+        };
+        registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    }
+
+    private static float getThermalFactor(int status) {
+        switch (status) {
+            case PowerManager.THERMAL_STATUS_NONE:
+            case PowerManager.THERMAL_STATUS_LIGHT:
+                return 1f;
+            case PowerManager.THERMAL_STATUS_MODERATE:
+                return 1.5f;
+            case PowerManager.THERMAL_STATUS_SEVERE:
+                return 2.5f;
+            default:
+                return 4f;
         }
     }
 
-    private ObjectDetector.Detection findClosestDetection(ObjectDetector.Detection[] detections) {
-        if (!trackingManager.hasMidpoint()) return null;
+    private void stopPowerMonitoring() {
+        if (batteryReceiver != null) {
+            unregisterReceiver(batteryReceiver);
+            batteryReceiver = null;
+        }
 
-        int[] midpoint = trackingManager.getMidpoint();
-        float minDist = Float.MAX_VALUE;
-        ObjectDetector.Detection closest = null;
+        if (thermalListener != null && powerManager != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+    }
 
-        for (ObjectDetector.Detection det : detections) {
-            float dx = det.centerX - midpoint[0];
-            float dy = det.centerY - midpoint[1];
-            float dist = (float) Math.sqrt(dx * dx + dy * dy);
+    private void stopCapture() {
+        stopReplay();
+
+        if (imageReader != null) {
+            imageReader.setOnImageAvailableListener(null, null);
+        }
 
-            if (dist < minDist) {
-                minDist = dist;
-                closest = det;
+        if (processingThread != null) {
+            processingThread.quitSafely();
+            try {
+                processingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            processingThread = null;
+            processingHandler = null;
         }
 
-        return closest;
-    }
+        if (deferredImage != null) {
+            deferredImage.close();
+            deferredImage = null;
+        }
+
+        if (pipeline != null) {
+            pipeline.stop();
+            pipeline = null;
+        }
+
+        stateStore.save(trackingManager, screenWidth, screenHeight);
+
+        stopRecording();
+        stopExport();
+
+        if (tiledDetector != null) {
+            tiledDetector.close();
+            tiledDetector = null;
+        }
+
+        closeTileWorkers(tileWorkers);
+        tileWorkers = null;
+
+        stopPowerMonitoring();
+
+        if (mainHandler != null) {
+            mainHandler.removeCallbacks(notificationUpdater);
+            mainHandler.removeCallbacks(pollingFrame);
+            mainHandler.removeCallbacks(resultDelivery);
+        }
 
-    private void stopCapture() {
         if (overlayView != null) {
             overlayView.remove();
             overlayView = null;
@@ -222,11 +895,167 @@ public class ScreenCaptureService extends Service {
 
         if (objectDetector != null) {
             objectDetector.close();
+            objectDetector = null;
         }
 
         isRunning = false;
     }
 
+    private void updateNotification() {
+        endToEndWindow.sample(System.nanoTime());
+        String text = String.format(Locale.US, "%.1f fps | p50 %.1fms | p99 %.1fms",
+                endToEndWindow.getFps(),
+                endToEndWindow.getP50Nanos() / 1e6,
+                endToEndWindow.getP99Nanos() / 1e6);
+
+        NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.notify(NOTIFICATION_ID, buildNotification(text));
+        }
+    }
+
+    private File getOutputDir() {
+        File dir = getExternalFilesDir(null);
+        return dir != null ? dir : getFilesDir();
+    }
+
+    private void startRecording(int width, int height) {
+        File file = new File(getOutputDir(), "capture-" + System.currentTimeMillis() + ".frames");
+        try {
+            recorder = new FrameRecorder(file, width, height, recordFrames);
+            Log.i(TAG, "Recording up to " + recordFrames + " frames to " + file);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) return;
+
+        try {
+            recorder.close();
+            Log.i(TAG, "Recorded " + recorder.getFrameCount() + " frames to " + recorder.getPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recorder = null;
+    }
+
+    private void startExport() {
+        File file = new File(getOutputDir(), "tracking.ring");
+        try {
+            exporter = new TrackingExporter(file, exportRecords, screenWidth, screenHeight);
+            Log.i(TAG, "Exporting " + exportRecords + " tracking records to " + file);
+            if (exportSocket) {
+                streamServer = new TrackingStreamServer(exporter);
+                Log.i(TAG, "Streaming tracking records on @" + TrackingStreamServer.SOCKET_NAME);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void stopExport() {
+        try {
+            if (streamServer != null) {
+                streamServer.close();
+            }
+            if (exporter != null) {
+                exporter.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        streamServer = null;
+        exporter = null;
+    }
+
+    private void replay(String path, final boolean realTime) {
+        if (path == null) return;
+        if (objectDetector == null && !loadingModel && !destroyed) {
+            Log.w(TAG, "Replay ignored, reloading the detector closed by the last capture stop");
+            reloadDetector();
+            return;
+        }
+        if (objectDetector == null || loadingModel || mediaProjection != null || replaying) {
+            Log.w(TAG, "Replay ignored while the detector is loading, capture or another replay is running");
+            return;
+        }
+
+        File file = new File(path);
+        final File recordingFile = file.isAbsolute() ? file : new File(getOutputDir(), path);
+        replaying = true;
+        replayThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runReplay(recordingFile, realTime);
+                } finally {
+                    replaying = false;
+                }
+            }
+        }, "ScreenTrackerReplay");
+        replayThread.start();
+    }
+
+    private void stopReplay() {
+        if (replayThread == null) return;
+
+        replayThread.interrupt();
+        try {
+            replayThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        replayThread = null;
+    }
+
+    private void runReplay(File path, boolean realTime) {
+        File reportFile = new File(path.getPath() + ".replay.txt");
+        try (FrameRecording recording = new FrameRecording(path);
+             PrintWriter out = new PrintWriter(new FileWriter(reportFile))) {
+            TrackingManager replayTracking = new TrackingManager();
+            replayTracking.setMidpoint(recording.getWidth() / 2, recording.getHeight() / 2);
+
+            FrameReplayer replayer = new FrameReplayer(recording, objectDetector, replayTracking);
+            replayer.setTrace(out);
+            FrameReplayer.Report report = replayer.run(realTime);
+            out.println(report);
+            out.println(replayer.getMetrics().summary());
+            Log.i(TAG, "Replay " + path.getName() + ": " + report);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Log.i(TAG, "Replay " + path.getName() + " cancelled");
+        }
+    }
+
+    private void dumpStats() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeStats();
+            }
+        }, "ScreenTrackerStatsDump").start();
+    }
+
+    private void writeStats() {
+        File file = new File(getOutputDir(), "stats-" + System.currentTimeMillis() + ".txt");
+        FramePipeline current = pipeline;
+        try (Writer out = new FileWriter(file)) {
+            out.write((eventDriven ? "pipelined" : "polling") + " interval=" + scheduler.getIntervalMillis() + "ms\n");
+            out.write(frameStats.summary() + "\n");
+            if (current != null) {
+                out.write(current.getStatsSummary() + "\n");
+            }
+            out.write("\n");
+            pipelineMetrics.dump(out);
+            Log.i(TAG, "Stats written to " + file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     private Notification createNotification() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
@@ -238,6 +1067,18 @@ public class ScreenCaptureService extends Service {
             manager.createNotificationChannel(channel);
         }
 
+        return buildNotification("Tracking active");
+    }
+
+    private Notification buildNotification(String text) {
+        Intent dumpIntent = new Intent(this, ScreenCaptureService.class);
+        dumpIntent.setAction("DUMP_STATS");
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+        PendingIntent dumpPending = PendingIntent.getService(this, 0, dumpIntent, flags);
+
         Notification.Builder builder;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             builder = new Notification.Builder(this, CHANNEL_ID);
@@ -247,14 +1088,17 @@ public class ScreenCaptureService extends Service {
 
         return builder
                 .setContentTitle("Screen Tracker")
-                .setContentText("Tracking active")
+                .setContentText(text)
                 .setSmallIcon(android.R.drawable.ic_menu_view)
+                .setOnlyAlertOnce(true)
+                .addAction(android.R.drawable.ic_menu_save, "Dump stats", dumpPending)
                 .build();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        destroyed = true;
         stopCapture();
     }
 
@@ -0,0 +1,154 @@
+package com.firekid.screentracker;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+public class TrackingStateStore {
+
+    private static final String PREFS_NAME = "tracking_state";
+
+    private final SharedPreferences prefs;
+    private int savedMidpointX = -1;
+    private int savedMidpointY = -1;
+    private int savedOffsetX;
+    private int savedOffsetY;
+
+    public TrackingStateStore(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public void restore(TrackingManager trackingManager, int screenWidth, int screenHeight) {
+        if (!prefs.contains("midpointX")
+                || prefs.getInt("screenWidth", 0) != screenWidth
+                || prefs.getInt("screenHeight", 0) != screenHeight) {
+            return;
+        }
+
+        savedMidpointX = prefs.getInt("midpointX", -1);
+        savedMidpointY = prefs.getInt("midpointY", -1);
+        savedOffsetX = Math.round(prefs.getFloat("offsetX", 0f));
+        savedOffsetY = Math.round(prefs.getFloat("offsetY", 0f));
+        trackingManager.setMidpoint(savedMidpointX, savedMidpointY);
+        trackingManager.restoreOffset(prefs.getFloat("offsetX", 0f), prefs.getFloat("offsetY", 0f));
+    }
+
+    public void save(TrackingManager trackingManager, int screenWidth, int screenHeight) {
+        int[] midpoint = trackingManager.getMidpoint();
+        if (midpoint == null) return;
+
+        int offsetX = Math.round(trackingManager.getOffsetX());
+        int offsetY = Math.round(trackingManager.getOffsetY());
+        if (midpoint[0] == savedMidpointX && midpoint[1] == savedMidpointY
+                && offsetX == savedOffsetX && offsetY == savedOffsetY) {
+            return;
+        }
+
+        savedMidpointX = midpoint[0];
+        savedMidpointY = midpoint[1];
+        savedOffsetX = offsetX;
+        savedOffsetY = offsetY;
+        prefs.edit()
+                .putInt("screenWidth", screenWidth)
+                .putInt("screenHeight", screenHeight)
+                .putInt("midpointX", midpoint[0])
+                .putInt("midpointY", midpoint[1])
+                .putFloat("offsetX", trackingManager.getOffsetX())
+                .putFloat("offsetY", trackingManager.getOffsetY())
+                .apply();
+    }
+
+    public RegionMask getRegionMask(int screenWidth, int screenHeight) {
+        if (prefs.getInt("regionScreenWidth", 0) != screenWidth
+                || prefs.getInt("regionScreenHeight", 0) != screenHeight) {
+            return RegionMask.NONE;
+        }
+
+        try {
+            return RegionMask.decode(prefs.getString("regionMask", null));
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return RegionMask.NONE;
+        }
+    }
+
+    public void saveRegionMask(RegionMask mask, int screenWidth, int screenHeight) {
+        if (mask.isEmpty()) {
+            prefs.edit().remove("regionMask").apply();
+            return;
+        }
+
+        prefs.edit()
+                .putInt("regionScreenWidth", screenWidth)
+                .putInt("regionScreenHeight", screenHeight)
+                .putString("regionMask", mask.encode())
+                .apply();
+    }
+
+    public String getModelName() {
+        return prefs.getString("modelName", null);
+    }
+
+    public void saveModelName(String name) {
+        prefs.edit().putString("modelName", name).apply();
+    }
+
+    public void saveDetectorSettings(Intent intent) {
+        SharedPreferences.Editor editor = prefs.edit();
+        if (intent.hasExtra("confidence")) {
+            editor.putFloat("confidence", intent.getFloatExtra("confidence", 0.5f));
+        }
+        if (intent.hasExtra("classes")) {
+            editor.putString("classes", joinClasses(intent.getIntArrayExtra("classes")));
+        }
+        if (intent.hasExtra("nmsIou")) {
+            editor.putFloat("nmsIou", intent.getFloatExtra("nmsIou", 0f));
+        }
+        if (intent.hasExtra("maxResults")) {
+            editor.putInt("maxResults", intent.getIntExtra("maxResults", 0));
+        }
+        editor.apply();
+    }
+
+    public void applyDetectorSettings(ObjectDetector detector) {
+        detector.setConfidenceThreshold(prefs.getFloat("confidence", ObjectDetector.CONFIDENCE_THRESHOLD));
+        detector.setAllowedClasses(splitClasses(prefs.getString("classes", "")));
+        detector.setNmsIouThreshold(prefs.getFloat("nmsIou", 0f));
+        detector.setMaxResults(prefs.getInt("maxResults", 0));
+    }
+
+    public void clearDetectorSettings() {
+        prefs.edit()
+                .remove("confidence")
+                .remove("classes")
+                .remove("nmsIou")
+                .remove("maxResults")
+                .apply();
+    }
+
+    private static String joinClasses(int[] classIds) {
+        StringBuilder builder = new StringBuilder();
+        if (classIds != null) {
+            for (int classId : classIds) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(classId);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int[] splitClasses(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        String[] parts = value.split(",");
+        int[] classIds = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            classIds[i] = Integer.parseInt(parts[i].trim());
+        }
+        return classIds;
+    }
+}
@@ -0,0 +1,163 @@
+package com.firekid.screentracker;
+
+import android.net.Credentials;
+import android.net.LocalServerSocket;
+import android.net.LocalSocket;
+import android.net.LocalSocketAddress;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+public class TrackingStreamServer implements Closeable {
+
+    public static final String SOCKET_NAME = "screentracker.tracking";
+    private static final String TAG = "TrackingStreamServer";
+    private static final int SHELL_UID = 2000;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    private final TrackingExporter exporter;
+    private final TrackingRingReader reader;
+    private final LocalServerSocket serverSocket;
+    private final List<LocalSocket> clients = new CopyOnWriteArrayList<>();
+    private final Thread acceptThread;
+    private final Thread streamThread;
+    private volatile boolean running = true;
+
+    public TrackingStreamServer(TrackingExporter exporter) throws IOException {
+        this.exporter = exporter;
+        this.reader = exporter.newReader();
+        this.serverSocket = new LocalServerSocket(SOCKET_NAME);
+
+        acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "ScreenTrackerExportAccept");
+        streamThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                streamLoop();
+            }
+        }, "ScreenTrackerExportStream");
+
+        exporter.setWaiter(streamThread);
+        acceptThread.start();
+        streamThread.start();
+    }
+
+    private void acceptLoop() {
+        byte[] header = new byte[TrackingExporter.HEADER_SIZE];
+        while (running) {
+            try {
+                LocalSocket client = serverSocket.accept();
+                if (!running) {
+                    client.close();
+                    return;
+                }
+                if (!isAllowed(client)) {
+                    closeClient(client);
+                    continue;
+                }
+
+                reader.copyHeader(ByteBuffer.wrap(header));
+                client.getOutputStream().write(header);
+                clients.add(client);
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static boolean isAllowed(LocalSocket client) {
+        try {
+            Credentials credentials = client.getPeerCredentials();
+            int uid = credentials.getUid();
+            if (uid == Process.myUid() || uid == SHELL_UID) {
+                return true;
+            }
+            Log.w(TAG, "Rejected tracking stream client uid " + uid + " pid " + credentials.getPid());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private void streamLoop() {
+        byte[] record = new byte[TrackingExporter.RECORD_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        long next = reader.getWriteSequence() + 1;
+
+        while (running) {
+            long written = reader.getWriteSequence();
+            if (written < next || clients.isEmpty()) {
+                next = Math.max(next, written + 1);
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            next = Math.max(next, written - reader.getCapacity() + 1);
+            for (; next <= written; next++) {
+                if (!reader.read(next, view)) {
+                    break;
+                }
+                send(record);
+            }
+        }
+    }
+
+    private void send(byte[] record) {
+        for (LocalSocket client : clients) {
+            try {
+                client.getOutputStream().write(record);
+            } catch (IOException e) {
+                clients.remove(client);
+                closeClient(client);
+            }
+        }
+    }
+
+    private static void closeClient(LocalSocket client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        exporter.setWaiter(null);
+
+        try {
+            LocalSocket wake = new LocalSocket();
+            wake.connect(new LocalSocketAddress(SOCKET_NAME));
+            wake.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverSocket.close();
+
+        for (LocalSocket client : clients) {
+            closeClient(client);
+        }
+        clients.clear();
+
+        LockSupport.unpark(streamThread);
+        try {
+            acceptThread.join(1000);
+            streamThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.firekid.screentracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecodeBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int maxDetections;
+
+    @Param({"0", "0.5"})
+    public float nmsIou;
+
+    @Param({"FLOAT32", "UINT8"})
+    public String format;
+
+    private OutputTensor boxes;
+    private OutputTensor classes;
+    private OutputTensor scores;
+    private OutputTensor count;
+    private DetectionDecoder decoder;
+    private DetectionBuffer out;
+
+    @Setup
+    public void setUp() {
+        TensorFormat tensorFormat = TensorFormat.valueOf(format);
+        float scale = tensorFormat.isQuantized() ? 1f / 255f : 1f;
+        boxes = new OutputTensor(maxDetections * 4 * tensorFormat.bytesPerElement, tensorFormat, scale, 0);
+        classes = new OutputTensor(maxDetections * 4, TensorFormat.FLOAT32, 1f, 0);
+        scores = new OutputTensor(maxDetections * tensorFormat.bytesPerElement, tensorFormat, scale, 0);
+        count = new OutputTensor(4, TensorFormat.FLOAT32, 1f, 0);
+
+        Random random = new Random(42);
+        for (int i = 0; i < maxDetections; i++) {
+            float y = random.nextFloat() * 0.8f;
+            float x = random.nextFloat() * 0.8f;
+            put(boxes, tensorFormat, i * 4, y);
+            put(boxes, tensorFormat, i * 4 + 1, x);
+            put(boxes, tensorFormat, i * 4 + 2, y + 0.1f);
+            put(boxes, tensorFormat, i * 4 + 3, x + 0.1f);
+            put(scores, tensorFormat, i, random.nextFloat());
+            classes.getBuffer().putFloat(i * 4, random.nextInt(90));
+        }
+        count.getBuffer().putFloat(0, maxDetections);
+
+        decoder = new DetectionDecoder(0.5f);
+        decoder.setNmsIouThreshold(nmsIou);
+        out = new DetectionBuffer(maxDetections);
+    }
+
+    private static void put(OutputTensor tensor, TensorFormat format, int index, float value) {
+        ByteBuffer buffer = tensor.getBuffer();
+        if (format.isQuantized()) {
+            buffer.put(index, (byte) Math.round(value * 255));
+        } else {
+            buffer.putFloat(index * 4, value);
+        }
+    }
+
+    @Benchmark
+    public DetectionBuffer decode() {
+        decoder.decode(boxes, classes, scores, count, 0, 0, 1080, 2400, out);
+        return out;
+    }
+}
@@ -0,0 +1,67 @@
+package com.firekid.screentracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExportBenchmark {
+
+    private static final int CAPACITY = 1024;
+
+    private File file;
+    private TrackingExporter exporter;
+    private TrackingRingReader reader;
+    private FrameResult result;
+    private final ByteBuffer record =
+            ByteBuffer.allocate(TrackingExporter.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("tracking", ".ring");
+        exporter = new TrackingExporter(file, CAPACITY, 1080, 2400);
+        reader = new TrackingRingReader(file);
+
+        result = new FrameResult(10);
+        result.hasTarget = true;
+        result.hasPanOffset = true;
+        result.targetX = 540;
+        result.targetY = 1200;
+        result.targetLeft = 500;
+        result.targetTop = 1150;
+        result.targetRight = 580;
+        result.targetBottom = 1250;
+        exporter.write(result);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        exporter.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void write() {
+        result.captureTimeNanos++;
+        result.panOffsetX = (int) (result.captureTimeNanos & 0xFF);
+        exporter.write(result);
+    }
+
+    @Benchmark
+    public boolean pollLatest() {
+        return reader.read(reader.getWriteSequence(), record);
+    }
+}
@@ -0,0 +1,86 @@
+package com.firekid.screentracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+
+    private static final int MODEL_SIZE = 300;
+    private static final int ROW_PADDING = 64;
+
+    @Param({"1080x2400", "720x1600", "600x1332"})
+    public String screen;
+
+    @Param({"FLOAT32", "UINT8"})
+    public String format;
+
+    private ByteBuffer pixels;
+    private ByteBuffer input;
+    private FramePreprocessor preprocessor;
+    private FramePreprocessor maskedPreprocessor;
+    private FrameChangeDetector changeDetector;
+    private int width;
+    private int height;
+    private int rowStride;
+
+    @Setup
+    public void setUp() {
+        String[] size = screen.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        rowStride = width * 4 + ROW_PADDING;
+
+        pixels = ByteBuffer.allocateDirect(rowStride * height);
+        byte[] noise = new byte[pixels.capacity()];
+        new Random(42).nextBytes(noise);
+        pixels.put(noise);
+        pixels.rewind();
+
+        preprocessor = new FramePreprocessor(MODEL_SIZE, MODEL_SIZE, TensorFormat.valueOf(format));
+        input = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize());
+        input.order(ByteOrder.nativeOrder());
+        maskedPreprocessor = new FramePreprocessor(MODEL_SIZE, MODEL_SIZE, TensorFormat.valueOf(format));
+        maskedPreprocessor.setMask(RegionMask.NONE
+                .withExclusion(0, 0, width, height / 30)
+                .withExclusion(0, height - height / 20, width, height)
+                .withExclusion(width / 2, height / 2, width, height * 3 / 4));
+        changeDetector = new FrameChangeDetector();
+    }
+
+    @Benchmark
+    public ByteBuffer fullFrame() {
+        preprocessor.process(pixels, width, height, rowStride, 4, input);
+        return input;
+    }
+
+    @Benchmark
+    public ByteBuffer maskedFrame() {
+        maskedPreprocessor.process(pixels, width, height, rowStride, 4, input);
+        return input;
+    }
+
+    @Benchmark
+    public ByteBuffer regionOfInterest() {
+        preprocessor.process(pixels, width / 4, height / 4, MODEL_SIZE, MODEL_SIZE, rowStride, 4, input);
+        return input;
+    }
+
+    @Benchmark
+    public boolean changeDetection() {
+        return changeDetector.hasChanged(pixels, width, height, rowStride, 4);
+    }
+}
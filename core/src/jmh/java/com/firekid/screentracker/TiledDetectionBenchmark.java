@@ -0,0 +1,145 @@
+package com.firekid.screentracker;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TiledDetectionBenchmark {
+
+    private static final int FRAME_WIDTH = 1080;
+    private static final int FRAME_HEIGHT = 2400;
+    private static final int MODEL_SIZE = 300;
+    private static final int TARGETS = 40;
+    private static final int MIN_DETECTABLE_PIXELS = 12;
+    private static final long INFERENCE_NANOS = 3_000_000L;
+
+    @Param({"1x1", "2x4", "3x6"})
+    public String layout;
+
+    @Param({"1", "2", "4"})
+    public int pool;
+
+    private final float[] targetLeft = new float[TARGETS];
+    private final float[] targetTop = new float[TARGETS];
+    private final float[] targetSize = new float[TARGETS];
+
+    private ByteBuffer pixels;
+    private ByteBuffer input;
+    private TiledDetector detector;
+    private DetectionBuffer out;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recall {
+        public long targets;
+        public long detected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            targets = 0;
+            detected = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < TARGETS; i++) {
+            targetSize[i] = 16 + random.nextInt(48);
+            targetLeft[i] = random.nextFloat() * (FRAME_WIDTH - targetSize[i]);
+            targetTop[i] = random.nextFloat() * (FRAME_HEIGHT - targetSize[i]);
+        }
+
+        pixels = ByteBuffer.allocateDirect(FRAME_WIDTH * FRAME_HEIGHT * 4);
+
+        String[] grid = layout.split("x");
+        Detector[] workers = new Detector[pool];
+        for (int i = 0; i < pool; i++) {
+            workers[i] = new SimulatedDetector();
+        }
+        detector = new TiledDetector(workers, Integer.parseInt(grid[0]), Integer.parseInt(grid[1]), 0.2f);
+        input = detector.createInputBuffer();
+        out = new DetectionBuffer(detector.getMaxDetections());
+    }
+
+    @TearDown
+    public void tearDown() {
+        detector.close();
+    }
+
+    @Benchmark
+    public DetectionBuffer detect(Recall recall) {
+        detector.preprocess(pixels, 0, 0, FRAME_WIDTH, FRAME_HEIGHT, FRAME_WIDTH * 4, 4, input);
+        detector.runInference(input, 0, 0, FRAME_WIDTH, FRAME_HEIGHT, out);
+
+        recall.targets += TARGETS;
+        for (int i = 0; i < TARGETS; i++) {
+            if (matched(i)) {
+                recall.detected++;
+            }
+        }
+        return out;
+    }
+
+    private boolean matched(int target) {
+        float left = targetLeft[target];
+        float top = targetTop[target];
+        float right = left + targetSize[target];
+        float bottom = top + targetSize[target];
+
+        for (int k = 0; k < out.count; k++) {
+            float interWidth = Math.min(right, out.right[k]) - Math.max(left, out.left[k]);
+            float interHeight = Math.min(bottom, out.bottom[k]) - Math.max(top, out.top[k]);
+            if (interWidth <= 0 || interHeight <= 0) continue;
+
+            float intersection = interWidth * interHeight;
+            float union = targetSize[target] * targetSize[target]
+                    + (out.right[k] - out.left[k]) * (out.bottom[k] - out.top[k]) - intersection;
+            if (intersection >= 0.5f * union) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class SimulatedDetector extends FakeDetector {
+
+        SimulatedDetector() {
+            super(MODEL_SIZE, TensorFormat.UINT8, TARGETS, INFERENCE_NANOS);
+        }
+
+        @Override
+        protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                              DetectionBuffer out) {
+            float scale = MODEL_SIZE / (float) Math.max(regionWidth, regionHeight);
+            int regionRight = regionLeft + regionWidth;
+            int regionBottom = regionTop + regionHeight;
+
+            for (int i = 0; i < TARGETS; i++) {
+                float left = Math.max(regionLeft, targetLeft[i]);
+                float top = Math.max(regionTop, targetTop[i]);
+                float right = Math.min(regionRight, targetLeft[i] + targetSize[i]);
+                float bottom = Math.min(regionBottom, targetTop[i] + targetSize[i]);
+                if (right <= left || bottom <= top) continue;
+                if (Math.min(right - left, bottom - top) * scale < MIN_DETECTABLE_PIXELS) continue;
+
+                out.add(left, top, right, bottom, 0.9f, 0);
+            }
+        }
+    }
+}
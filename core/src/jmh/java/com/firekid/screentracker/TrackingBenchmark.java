@@ -0,0 +1,106 @@
+package com.firekid.screentracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackingBenchmark {
+
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2400;
+    private static final int FRAMES = 16;
+
+    @Param({"10", "50"})
+    public int detectionCount;
+
+    private DetectionBuffer[] frames;
+    private TrackingManager trackingManager;
+    private TrackingManager predictiveManager;
+    private final int[] offset = new int[2];
+    private long timestampNanos;
+    private MultiObjectTracker multiTracker;
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        float[] x = new float[detectionCount];
+        float[] y = new float[detectionCount];
+        for (int i = 0; i < detectionCount; i++) {
+            x[i] = random.nextFloat() * (SCREEN_WIDTH - 100);
+            y[i] = random.nextFloat() * (SCREEN_HEIGHT - 100);
+        }
+
+        frames = new DetectionBuffer[FRAMES];
+        for (int f = 0; f < FRAMES; f++) {
+            frames[f] = new DetectionBuffer(detectionCount);
+            for (int i = 0; i < detectionCount; i++) {
+                x[i] += random.nextFloat() * 10 - 5;
+                y[i] += random.nextFloat() * 10 - 5;
+                frames[f].add(x[i], y[i], x[i] + 80, y[i] + 80, 0.9f, i % 3);
+            }
+        }
+
+        trackingManager = new TrackingManager();
+        trackingManager.setMidpoint(SCREEN_WIDTH / 2, SCREEN_HEIGHT / 2);
+        predictiveManager = new TrackingManager();
+        predictiveManager.setMidpoint(SCREEN_WIDTH / 2, SCREEN_HEIGHT / 2);
+        predictiveManager.setPredictive(true);
+        multiTracker = new MultiObjectTracker();
+    }
+
+    private DetectionBuffer nextFrame() {
+        frame = (frame + 1) % FRAMES;
+        return frames[frame];
+    }
+
+    @Benchmark
+    public int nearestDetection() {
+        return nextFrame().nearest(SCREEN_WIDTH / 2f, SCREEN_HEIGHT / 2f);
+    }
+
+    @Benchmark
+    public int[] panSmoothing() {
+        DetectionBuffer detections = nextFrame();
+        trackingManager.calculatePanOffset(detections.centerX(0), detections.centerY(0), offset);
+        return offset;
+    }
+
+    @Benchmark
+    public int[] predictivePan() {
+        DetectionBuffer detections = nextFrame();
+        timestampNanos += 33_333_333L;
+        predictiveManager.update(detections.centerX(0), detections.centerY(0), timestampNanos);
+        predictiveManager.predictPanOffset(timestampNanos + 40_000_000L, offset);
+        return offset;
+    }
+
+    @Benchmark
+    public int[] predictPerVsync() {
+        timestampNanos += 8_333_333L;
+        if (frame % 4 == 0) {
+            DetectionBuffer detections = frames[frame];
+            predictiveManager.update(detections.centerX(0), detections.centerY(0), timestampNanos);
+        }
+        frame = (frame + 1) % FRAMES;
+        predictiveManager.predictPanOffset(timestampNanos, offset);
+        return offset;
+    }
+
+    @Benchmark
+    public int multiObjectUpdate() {
+        multiTracker.update(nextFrame());
+        return multiTracker.getTrackCount();
+    }
+}
@@ -0,0 +1,60 @@
+package com.firekid.screentracker;
+
+public class CaptureTransform {
+
+    public final int screenWidth;
+    public final int screenHeight;
+    public final int captureWidth;
+    public final int captureHeight;
+    private final float scaleX;
+    private final float scaleY;
+
+    public CaptureTransform(int screenWidth, int screenHeight, int captureWidth, int captureHeight) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.captureWidth = captureWidth;
+        this.captureHeight = captureHeight;
+        this.scaleX = screenWidth / (float) captureWidth;
+        this.scaleY = screenHeight / (float) captureHeight;
+    }
+
+    public static CaptureTransform forModel(int screenWidth, int screenHeight, int modelSize, float oversample) {
+        int shortSide = Math.min(screenWidth, screenHeight);
+        float scale = Math.min(1f, modelSize * oversample / shortSide);
+        int captureWidth = Math.max(2, Math.round(screenWidth * scale) & ~1);
+        int captureHeight = Math.max(2, Math.round(screenHeight * scale) & ~1);
+        return new CaptureTransform(screenWidth, screenHeight, captureWidth, captureHeight);
+    }
+
+    public static CaptureTransform identity(int screenWidth, int screenHeight) {
+        return new CaptureTransform(screenWidth, screenHeight, screenWidth, screenHeight);
+    }
+
+    public boolean isIdentity() {
+        return screenWidth == captureWidth && screenHeight == captureHeight;
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    public float toScreenX(float captureX) {
+        return captureX * scaleX;
+    }
+
+    public float toScreenY(float captureY) {
+        return captureY * scaleY;
+    }
+
+    public float toCaptureX(float screenX) {
+        return screenX / scaleX;
+    }
+
+    public float toCaptureY(float screenY) {
+        return screenY / scaleY;
+    }
+}
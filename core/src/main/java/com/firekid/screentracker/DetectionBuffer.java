@@ -0,0 +1,79 @@
+package com.firekid.screentracker;
+
+public class DetectionBuffer {
+
+    public final int capacity;
+    public final float[] left;
+    public final float[] top;
+    public final float[] right;
+    public final float[] bottom;
+    public final float[] confidence;
+    public final int[] classId;
+    public int count;
+
+    public DetectionBuffer(int capacity) {
+        this.capacity = capacity;
+        left = new float[capacity];
+        top = new float[capacity];
+        right = new float[capacity];
+        bottom = new float[capacity];
+        confidence = new float[capacity];
+        classId = new int[capacity];
+    }
+
+    public boolean add(float x1, float y1, float x2, float y2, float score, int cls) {
+        if (count == capacity) {
+            return false;
+        }
+
+        int i = count++;
+        left[i] = x1;
+        top[i] = y1;
+        right[i] = x2;
+        bottom[i] = y2;
+        confidence[i] = score;
+        classId[i] = cls;
+        return true;
+    }
+
+    public int centerX(int i) {
+        return (int) ((left[i] + right[i]) / 2);
+    }
+
+    public int centerY(int i) {
+        return (int) ((top[i] + bottom[i]) / 2);
+    }
+
+    public int nearest(float x, float y) {
+        int best = -1;
+        float bestDistance = Float.MAX_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            float dx = (left[i] + right[i]) * 0.5f - x;
+            float dy = (top[i] + bottom[i]) * 0.5f - y;
+            float distance = dx * dx + dy * dy;
+
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public void copyFrom(DetectionBuffer other) {
+        int n = Math.min(other.count, capacity);
+        System.arraycopy(other.left, 0, left, 0, n);
+        System.arraycopy(other.top, 0, top, 0, n);
+        System.arraycopy(other.right, 0, right, 0, n);
+        System.arraycopy(other.bottom, 0, bottom, 0, n);
+        System.arraycopy(other.confidence, 0, confidence, 0, n);
+        System.arraycopy(other.classId, 0, classId, 0, n);
+        count = n;
+    }
+}
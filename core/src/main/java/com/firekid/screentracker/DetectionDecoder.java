@@ -0,0 +1,172 @@
+package com.firekid.screentracker;
+
+import java.util.Arrays;
+
+public class DetectionDecoder {
+
+    private volatile float confidenceThreshold;
+    private volatile boolean[] allowedClasses;
+    private volatile float nmsIouThreshold = 0f;
+    private volatile int maxResults = Integer.MAX_VALUE;
+
+    private float[] candidateTop = new float[0];
+    private float[] candidateLeft = new float[0];
+    private float[] candidateBottom = new float[0];
+    private float[] candidateRight = new float[0];
+    private float[] candidateArea = new float[0];
+    private float[] candidateScore = new float[0];
+    private int[] candidateClass = new int[0];
+    private long[] order = new long[0];
+    private int[] kept = new int[0];
+
+    public DetectionDecoder(float confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public void setConfidenceThreshold(float confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public void setAllowedClasses(int... classIds) {
+        if (classIds == null || classIds.length == 0) {
+            allowedClasses = null;
+            return;
+        }
+
+        int max = 0;
+        for (int classId : classIds) {
+            max = Math.max(max, classId);
+        }
+
+        boolean[] allowed = new boolean[max + 1];
+        for (int classId : classIds) {
+            if (classId >= 0) {
+                allowed[classId] = true;
+            }
+        }
+        allowedClasses = allowed;
+    }
+
+    public void setNmsIouThreshold(float nmsIouThreshold) {
+        this.nmsIouThreshold = nmsIouThreshold;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults > 0 ? maxResults : Integer.MAX_VALUE;
+    }
+
+    public void copySettingsFrom(DetectionDecoder other) {
+        confidenceThreshold = other.confidenceThreshold;
+        allowedClasses = other.allowedClasses;
+        nmsIouThreshold = other.nmsIouThreshold;
+        maxResults = other.maxResults;
+    }
+
+    public void decode(OutputTensor boxes, OutputTensor classes, OutputTensor scores, OutputTensor count,
+                       int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                       DetectionBuffer out) {
+        out.clear();
+        int numDet = Math.min(Math.round(count.get(0)), scores.size());
+        float threshold = confidenceThreshold;
+        boolean[] allowed = allowedClasses;
+        float iouThreshold = nmsIouThreshold;
+        int limit = Math.min(maxResults, out.capacity);
+
+        if (iouThreshold <= 0f) {
+            for (int i = 0; i < numDet && out.count < limit; i++) {
+                float confidence = scores.get(i);
+                if (confidence <= threshold) continue;
+
+                int classId = Math.round(classes.get(i));
+                if (!isAllowed(allowed, classId)) continue;
+
+                int box = i * 4;
+                float ymin = regionTop + boxes.get(box) * regionHeight;
+                float xmin = regionLeft + boxes.get(box + 1) * regionWidth;
+                float ymax = regionTop + boxes.get(box + 2) * regionHeight;
+                float xmax = regionLeft + boxes.get(box + 3) * regionWidth;
+                out.add(xmin, ymin, xmax, ymax, confidence, classId);
+            }
+            return;
+        }
+
+        ensureCapacity(numDet);
+        int candidates = 0;
+        for (int i = 0; i < numDet; i++) {
+            float confidence = scores.get(i);
+            if (confidence <= threshold) continue;
+
+            int classId = Math.round(classes.get(i));
+            if (!isAllowed(allowed, classId)) continue;
+
+            int box = i * 4;
+            float ymin = boxes.get(box);
+            float xmin = boxes.get(box + 1);
+            float ymax = boxes.get(box + 2);
+            float xmax = boxes.get(box + 3);
+
+            candidateTop[candidates] = ymin;
+            candidateLeft[candidates] = xmin;
+            candidateBottom[candidates] = ymax;
+            candidateRight[candidates] = xmax;
+            candidateArea[candidates] = Math.max(0f, ymax - ymin) * Math.max(0f, xmax - xmin);
+            candidateScore[candidates] = confidence;
+            candidateClass[candidates] = classId;
+            order[candidates] = ((long) Float.floatToIntBits(confidence) << 32) | candidates;
+            candidates++;
+        }
+
+        Arrays.sort(order, 0, candidates);
+
+        int keptCount = 0;
+        for (int o = candidates - 1; o >= 0 && keptCount < limit; o--) {
+            int c = (int) order[o];
+            if (!suppressed(c, keptCount, iouThreshold)) {
+                kept[keptCount++] = c;
+                out.add(regionLeft + candidateLeft[c] * regionWidth,
+                        regionTop + candidateTop[c] * regionHeight,
+                        regionLeft + candidateRight[c] * regionWidth,
+                        regionTop + candidateBottom[c] * regionHeight,
+                        candidateScore[c], candidateClass[c]);
+            }
+        }
+    }
+
+    private boolean suppressed(int c, int keptCount, float iouThreshold) {
+        for (int k = 0; k < keptCount; k++) {
+            int other = kept[k];
+            if (candidateClass[other] != candidateClass[c]) continue;
+
+            float interTop = Math.max(candidateTop[c], candidateTop[other]);
+            float interLeft = Math.max(candidateLeft[c], candidateLeft[other]);
+            float interBottom = Math.min(candidateBottom[c], candidateBottom[other]);
+            float interRight = Math.min(candidateRight[c], candidateRight[other]);
+            if (interBottom <= interTop || interRight <= interLeft) continue;
+
+            float intersection = (interBottom - interTop) * (interRight - interLeft);
+            float union = candidateArea[c] + candidateArea[other] - intersection;
+            if (union > 0f && intersection > iouThreshold * union) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAllowed(boolean[] allowed, int classId) {
+        return allowed == null || (classId >= 0 && classId < allowed.length && allowed[classId]);
+    }
+
+    private void ensureCapacity(int size) {
+        if (order.length >= size) return;
+
+        candidateTop = new float[size];
+        candidateLeft = new float[size];
+        candidateBottom = new float[size];
+        candidateRight = new float[size];
+        candidateArea = new float[size];
+        candidateScore = new float[size];
+        candidateClass = new int[size];
+        order = new long[size];
+        kept = new int[size];
+    }
+}
@@ -0,0 +1,24 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+
+public interface Detector {
+
+    int getInputWidth();
+
+    int getInputHeight();
+
+    int getMaxDetections();
+
+    ByteBuffer createInputBuffer();
+
+    FramePreprocessor createPreprocessor();
+
+    void setRegionMask(RegionMask mask);
+
+    void preprocess(ByteBuffer pixels, int left, int top, int width, int height,
+                    int rowStride, int pixelStride, ByteBuffer input);
+
+    void runInference(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                      DetectionBuffer out);
+}
@@ -0,0 +1,73 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+
+public class FrameChangeDetector {
+
+    private static final int DEFAULT_GRID_SIZE = 64;
+    private static final int DEFAULT_PIXEL_THRESHOLD = 12;
+    private static final int DEFAULT_MIN_CHANGED_SAMPLES = 4;
+
+    private final int gridSize;
+    private final int[] signature;
+    private final int[] previous;
+    private boolean hasPrevious = false;
+
+    private int pixelThreshold = DEFAULT_PIXEL_THRESHOLD;
+    private int minChangedSamples = DEFAULT_MIN_CHANGED_SAMPLES;
+    private long skippedFrames = 0;
+
+    public FrameChangeDetector() {
+        this(DEFAULT_GRID_SIZE);
+    }
+
+    public FrameChangeDetector(int gridSize) {
+        this.gridSize = gridSize;
+        this.signature = new int[gridSize * gridSize];
+        this.previous = new int[gridSize * gridSize];
+    }
+
+    public void setSensitivity(int pixelThreshold, int minChangedSamples) {
+        this.pixelThreshold = pixelThreshold;
+        this.minChangedSamples = Math.max(1, minChangedSamples);
+    }
+
+    public boolean hasChanged(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride) {
+        int changed = 0;
+        int index = 0;
+
+        for (int gy = 0; gy < gridSize; gy++) {
+            int rowBase = (int) (((2L * gy + 1) * height) / (2L * gridSize)) * rowStride;
+            for (int gx = 0; gx < gridSize; gx++) {
+                int src = rowBase + (int) (((2L * gx + 1) * width) / (2L * gridSize)) * pixelStride;
+                int luma = ((pixels.get(src) & 0xFF)
+                        + ((pixels.get(src + 1) & 0xFF) << 1)
+                        + (pixels.get(src + 2) & 0xFF)) >> 2;
+
+                if (Math.abs(luma - previous[index]) > pixelThreshold) {
+                    changed++;
+                }
+                signature[index++] = luma;
+            }
+        }
+
+        boolean result = !hasPrevious || changed >= minChangedSamples;
+        if (result) {
+            System.arraycopy(signature, 0, previous, 0, signature.length);
+            hasPrevious = true;
+        } else {
+            skippedFrames++;
+        }
+
+        return result;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public void reset() {
+        hasPrevious = false;
+        skippedFrames = 0;
+    }
+}
@@ -0,0 +1,385 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+public class FramePipeline {
+
+    private static final int QUEUE_CAPACITY = 1;
+    private static final int DETECTOR_INTERVAL = 5;
+    private static final float MIN_TRACK_CONFIDENCE = 0.6f;
+
+    public interface Listener {
+        void onFrameResult(long sequence);
+    }
+
+    private final Detector objectDetector;
+    private final TrackingManager trackingManager;
+    private final Listener listener;
+    private final boolean pipelined;
+
+    private final RoiTracker roiTracker;
+    private final FrameChangeDetector changeDetector = new FrameChangeDetector();
+    private final TemplateTracker templateTracker = new TemplateTracker();
+    private final MultiObjectTracker multiTracker = new MultiObjectTracker();
+    private final FrameSlotQueue inferenceQueue;
+    private final FrameSlot syncSlot;
+    private final int[] region = new int[4];
+    private final int[] midpoint = new int[2];
+    private int framesSinceDetection = 0;
+
+    private PipelineMetrics metrics = new PipelineMetrics();
+
+    private final FrameResultExchange resultExchange;
+    private final DetectionBuffer inferenceDetections;
+    private volatile boolean midpointChanged = false;
+    private volatile boolean hasResult = false;
+    private volatile int lastDetectionCount = 0;
+    private FrameScheduler scheduler;
+    private CaptureTransform transform;
+    private volatile RegionMask regionMask;
+    private volatile TrackingExporter exporter;
+    private Thread inferenceThread;
+    private volatile boolean running = false;
+
+    private final Object lock = new Object();
+    private boolean hasTarget = false;
+    private int targetX;
+    private int targetY;
+    private float targetLeft;
+    private float targetTop;
+    private float targetRight;
+    private float targetBottom;
+    private boolean lockChanged = false;
+    private boolean lockFound = false;
+    private float lockLeft;
+    private float lockTop;
+    private float lockRight;
+    private float lockBottom;
+    private final DetectionBuffer lastDetections;
+    private final int[] panOffset = new int[2];
+    private long resultSequence = 0;
+
+    public FramePipeline(Detector objectDetector, TrackingManager trackingManager,
+                         Listener listener, boolean pipelined) {
+        this.objectDetector = objectDetector;
+        this.trackingManager = trackingManager;
+        this.listener = listener;
+        this.pipelined = pipelined;
+        this.roiTracker = new RoiTracker(objectDetector.getInputWidth(), objectDetector.getInputHeight());
+
+        FrameSlot[] slots = new FrameSlot[QUEUE_CAPACITY + 2];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new FrameSlot(objectDetector.createInputBuffer());
+        }
+        inferenceQueue = new FrameSlotQueue(slots, QUEUE_CAPACITY);
+        syncSlot = new FrameSlot(objectDetector.createInputBuffer());
+        resultExchange = new FrameResultExchange(objectDetector.getMaxDetections());
+        inferenceDetections = new DetectionBuffer(objectDetector.getMaxDetections());
+        lastDetections = new DetectionBuffer(objectDetector.getMaxDetections());
+    }
+
+    public FrameResult acquireResult() {
+        return resultExchange.acquire();
+    }
+
+    public void setCaptureTransform(CaptureTransform transform) {
+        this.transform = transform;
+    }
+
+    public void setRegionMask(RegionMask mask) {
+        this.regionMask = mask;
+        objectDetector.setRegionMask(mask);
+    }
+
+    public void setExporter(TrackingExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setScheduler(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void start() {
+        if (!pipelined || running) return;
+
+        running = true;
+        inferenceThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                inferenceLoop();
+            }
+        }, "ScreenTrackerInference");
+        inferenceThread.setPriority(Thread.MAX_PRIORITY - 1);
+        inferenceThread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (inferenceThread != null) {
+            inferenceThread.interrupt();
+            try {
+                inferenceThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inferenceThread = null;
+        }
+        inferenceQueue.clear();
+    }
+
+    public void onMidpointChanged() {
+        midpointChanged = true;
+    }
+
+    public void submitFrame(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                            long captureTimeNanos) {
+        long start = System.nanoTime();
+        applyLockChange(pixels, width, height, rowStride, pixelStride);
+        boolean relock = midpointChanged;
+
+        if (hasResult && !relock && !changeDetector.hasChanged(pixels, width, height, rowStride, pixelStride)) {
+            metrics.onSkipped();
+            metrics.preprocess.record(System.nanoTime() - start);
+            publish(lastDetectionCount > 0, captureTimeNanos);
+            return;
+        }
+
+        if (!relock && trackingManager.hasMidpoint() && templateTracker.isActive()
+                && framesSinceDetection < DETECTOR_INTERVAL
+                && templateTracker.track(pixels, width, height, rowStride, pixelStride) >= MIN_TRACK_CONFIDENCE) {
+            framesSinceDetection++;
+            roiTracker.onTargetFound(templateTracker.getLeft(), templateTracker.getTop(),
+                    templateTracker.getRight(), templateTracker.getBottom());
+            setTarget(templateTracker.getCenterX(), templateTracker.getCenterY(),
+                    templateTracker.getLeft(), templateTracker.getTop(),
+                    templateTracker.getRight(), templateTracker.getBottom());
+            metrics.preprocess.record(System.nanoTime() - start);
+            publish(lastDetectionCount > 0, captureTimeNanos);
+            return;
+        }
+
+        FrameSlot slot = pipelined ? inferenceQueue.acquire() : syncSlot;
+        if (slot == null) {
+            metrics.onDropped();
+            return;
+        }
+
+        roiTracker.selectRegion(width, height, region);
+        RegionMask mask = regionMask;
+        if (mask != null) {
+            mask.confine(width, height, region);
+        }
+        objectDetector.preprocess(pixels, region[0], region[1], region[2], region[3],
+                rowStride, pixelStride, slot.input);
+        slot.regionLeft = region[0];
+        slot.regionTop = region[1];
+        slot.regionWidth = region[2];
+        slot.regionHeight = region[3];
+        slot.captureTimeNanos = captureTimeNanos;
+        framesSinceDetection = 0;
+        long preprocessNanos = System.nanoTime() - start;
+        metrics.preprocess.record(preprocessNanos);
+        if (scheduler != null) {
+            scheduler.onPreprocessTime(preprocessNanos);
+        }
+
+        if (pipelined) {
+            if (inferenceQueue.publish(slot)) {
+                metrics.onDropped();
+            }
+        } else {
+            infer(slot);
+        }
+    }
+
+    private void inferenceLoop() {
+        while (running) {
+            FrameSlot slot;
+            try {
+                slot = inferenceQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                infer(slot);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                inferenceQueue.release(slot);
+            }
+        }
+    }
+
+    private void infer(FrameSlot slot) {
+        DetectionBuffer detections = inferenceDetections;
+        long inferenceStart = System.nanoTime();
+        objectDetector.runInference(slot.input,
+                slot.regionLeft, slot.regionTop, slot.regionWidth, slot.regionHeight, detections);
+        if (scheduler != null) {
+            scheduler.onInferenceTime(System.nanoTime() - inferenceStart);
+        }
+        RegionMask mask = regionMask;
+        if (mask != null) {
+            mask.filter(detections);
+        }
+
+        long start = System.nanoTime();
+        if (midpointChanged) {
+            midpointChanged = false;
+            multiTracker.unlock();
+        }
+        multiTracker.update(detections, slot.regionLeft, slot.regionTop,
+                slot.regionLeft + slot.regionWidth, slot.regionTop + slot.regionHeight);
+
+        boolean tracking = trackingManager.hasMidpoint();
+        int locked = tracking ? findLockedTrack() : -1;
+        synchronized (lock) {
+            lastDetections.copyFrom(detections);
+            if (tracking) {
+                lockChanged = true;
+                lockFound = locked >= 0;
+                if (lockFound) {
+                    lockLeft = multiTracker.getLeft(locked);
+                    lockTop = multiTracker.getTop(locked);
+                    lockRight = multiTracker.getRight(locked);
+                    lockBottom = multiTracker.getBottom(locked);
+                    hasTarget = true;
+                    targetX = multiTracker.getCenterX(locked);
+                    targetY = multiTracker.getCenterY(locked);
+                    targetLeft = lockLeft;
+                    targetTop = lockTop;
+                    targetRight = lockRight;
+                    targetBottom = lockBottom;
+                } else {
+                    hasTarget = false;
+                }
+            }
+        }
+
+        int count = detections.count;
+        lastDetectionCount = count;
+        hasResult = true;
+        metrics.track.record(System.nanoTime() - start);
+        publish(count > 0, slot.captureTimeNanos);
+    }
+
+    private int findLockedTrack() {
+        int locked = multiTracker.getLockedIndex();
+        if (locked < 0) {
+            if (!trackingManager.getMidpoint(midpoint)) return -1;
+            int x = midpoint[0];
+            int y = midpoint[1];
+            if (transform != null) {
+                x = Math.round(transform.toCaptureX(x));
+                y = Math.round(transform.toCaptureY(y));
+            }
+            locked = multiTracker.lockNearest(x, y);
+        }
+
+        if (locked >= 0 && multiTracker.getMisses(locked) > 0) {
+            return -1;
+        }
+        return locked;
+    }
+
+    private void applyLockChange(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride) {
+        synchronized (lock) {
+            if (!lockChanged) return;
+            lockChanged = false;
+
+            if (lockFound) {
+                roiTracker.onTargetFound(lockLeft, lockTop, lockRight, lockBottom);
+                templateTracker.initialize(pixels, width, height, rowStride, pixelStride,
+                        lockLeft, lockTop, lockRight, lockBottom);
+            } else {
+                roiTracker.onTargetLost();
+                templateTracker.reset();
+            }
+        }
+    }
+
+    private void setTarget(int x, int y, float left, float top, float right, float bottom) {
+        synchronized (lock) {
+            targetX = x;
+            targetY = y;
+            targetLeft = left;
+            targetTop = top;
+            targetRight = right;
+            targetBottom = bottom;
+            hasTarget = true;
+        }
+    }
+
+    private void publish(boolean hasDetections, long captureTimeNanos) {
+        long sequence;
+        synchronized (lock) {
+            int screenX = targetX;
+            int screenY = targetY;
+            float screenLeft = targetLeft;
+            float screenTop = targetTop;
+            float screenRight = targetRight;
+            float screenBottom = targetBottom;
+            if (transform != null) {
+                screenX = Math.round(transform.toScreenX(targetX));
+                screenY = Math.round(transform.toScreenY(targetY));
+                screenLeft = transform.toScreenX(targetLeft);
+                screenTop = transform.toScreenY(targetTop);
+                screenRight = transform.toScreenX(targetRight);
+                screenBottom = transform.toScreenY(targetBottom);
+            }
+
+            FrameResult result = resultExchange.getBackBuffer();
+            result.detections.copyFrom(lastDetections);
+            result.hasTarget = hasTarget;
+            result.targetX = screenX;
+            result.targetY = screenY;
+            result.targetLeft = screenLeft;
+            result.targetTop = screenTop;
+            result.targetRight = screenRight;
+            result.targetBottom = screenBottom;
+            result.hasPanOffset = false;
+            long publishTimeNanos = System.nanoTime();
+            if (trackingManager.hasMidpoint() && hasTarget) {
+                if (trackingManager.isPredictive()) {
+                    trackingManager.update(screenX, screenY, captureTimeNanos);
+                    result.hasPanOffset = trackingManager.estimatePanOffset(publishTimeNanos, panOffset);
+                } else {
+                    trackingManager.calculatePanOffset(screenX, screenY, panOffset);
+                    result.hasPanOffset = true;
+                }
+                if (result.hasPanOffset) {
+                    result.panOffsetX = panOffset[0];
+                    result.panOffsetY = panOffset[1];
+                }
+            }
+
+            if (scheduler != null) {
+                scheduler.onFrameResult(hasDetections, hasTarget, screenX, screenY);
+            }
+
+            sequence = ++resultSequence;
+            result.sequence = sequence;
+            result.captureTimeNanos = captureTimeNanos;
+            result.publishTimeNanos = publishTimeNanos;
+            TrackingExporter currentExporter = exporter;
+            if (currentExporter != null) {
+                currentExporter.write(result);
+            }
+            resultExchange.publish();
+        }
+
+        listener.onFrameResult(sequence);
+    }
+
+    public String getStatsSummary() {
+        return "queue avg=" + String.format(Locale.US, "%.2f", inferenceQueue.getAverageOccupancy())
+                + " dropped=" + inferenceQueue.getDropped()
+                + " | unchanged=" + changeDetector.getSkippedFrames();
+    }
+}
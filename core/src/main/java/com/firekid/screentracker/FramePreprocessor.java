@@ -0,0 +1,224 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class FramePreprocessor {
+
+    private static final float[] NORMALIZED = new float[256];
+    private static final float[][] INPUT_RANGES = {{0f, 1f}, {-1f, 1f}, {0f, 255f}};
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            NORMALIZED[i] = i / 255.0f;
+        }
+    }
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final TensorFormat format;
+    private final byte[] quantized;
+    private final int[] columnOffsets;
+    private final int[] rowOffsets;
+    private final int[] sourceX;
+    private final int[] sourceY;
+
+    private volatile RegionMask mask;
+    private RegionMask cachedMask;
+    private final int[] maskRect = new int[4];
+    private int[] maskRuns = new int[0];
+    private int maskRunCount = 0;
+
+    private int cachedLeft = -1;
+    private int cachedTop = -1;
+    private int cachedWidth = -1;
+    private int cachedHeight = -1;
+    private int cachedRowStride = -1;
+    private int cachedPixelStride = -1;
+
+    public FramePreprocessor(int inputWidth, int inputHeight) {
+        this(inputWidth, inputHeight, TensorFormat.FLOAT32);
+    }
+
+    public FramePreprocessor(int inputWidth, int inputHeight, TensorFormat format) {
+        this(inputWidth, inputHeight, format, 1f / 255f, format == TensorFormat.INT8 ? -128 : 0);
+    }
+
+    public FramePreprocessor(int inputWidth, int inputHeight, TensorFormat format, float scale, int zeroPoint) {
+        this(inputWidth, inputHeight, format,
+                format.isQuantized() ? createQuantizationTable(format, scale, zeroPoint) : null);
+    }
+
+    private FramePreprocessor(int inputWidth, int inputHeight, TensorFormat format, byte[] quantized) {
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.format = format;
+        this.quantized = quantized;
+        this.columnOffsets = new int[inputWidth];
+        this.rowOffsets = new int[inputHeight];
+        this.sourceX = new int[inputWidth];
+        this.sourceY = new int[inputHeight];
+    }
+
+    public FramePreprocessor copy() {
+        FramePreprocessor copy = new FramePreprocessor(inputWidth, inputHeight, format, quantized);
+        copy.setMask(mask);
+        return copy;
+    }
+
+    public void setMask(RegionMask mask) {
+        this.mask = mask;
+    }
+
+    public int getInputBufferSize() {
+        return inputWidth * inputHeight * 3 * format.bytesPerElement;
+    }
+
+    public void process(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                        ByteBuffer output) {
+        process(pixels, 0, 0, width, height, rowStride, pixelStride, output);
+    }
+
+    public void process(ByteBuffer pixels, int left, int top, int width, int height,
+                        int rowStride, int pixelStride, ByteBuffer output) {
+        RegionMask currentMask = mask;
+        updateOffsets(left, top, width, height, rowStride, pixelStride, currentMask);
+
+        if (quantized != null) {
+            writeQuantized(pixels, output);
+            clearMasked(output, quantized[0]);
+        } else {
+            writeFloat(pixels, output);
+            clearMasked(output, (byte) 0);
+        }
+    }
+
+    static byte[] createQuantizationTable(TensorFormat format, float scale, int zeroPoint) {
+        int min = format == TensorFormat.INT8 ? -128 : 0;
+        int max = min + 255;
+        if (!(scale > 0f) || zeroPoint < min || zeroPoint > max) {
+            throw new IllegalArgumentException("Unsupported input quantization: scale=" + scale
+                    + ", zeroPoint=" + zeroPoint);
+        }
+
+        float low = (min - zeroPoint) * scale;
+        float high = (max - zeroPoint) * scale;
+        float tolerance = 2f * scale;
+        for (float[] range : INPUT_RANGES) {
+            if (Math.abs(low - range[0]) > tolerance || Math.abs(high - range[1]) > tolerance) continue;
+
+            byte[] table = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                float real = range[0] + i * (range[1] - range[0]) / 255f;
+                int q = Math.round(real / scale) + zeroPoint;
+                table[i] = (byte) Math.max(min, Math.min(max, q));
+            }
+            return table;
+        }
+
+        throw new IllegalArgumentException("Unsupported input quantization: scale=" + scale
+                + ", zeroPoint=" + zeroPoint + " maps to [" + low + ", " + high + "]");
+    }
+
+    private void clearMasked(ByteBuffer output, byte fill) {
+        int pixelBytes = 3 * format.bytesPerElement;
+        for (int i = 0; i < maskRunCount; i++) {
+            int start = maskRuns[i * 2] * pixelBytes;
+            int end = start + maskRuns[i * 2 + 1] * pixelBytes;
+            for (int b = start; b < end; b++) {
+                output.put(b, fill);
+            }
+        }
+    }
+
+    private void writeFloat(ByteBuffer pixels, ByteBuffer output) {
+        int out = 0;
+        for (int y = 0; y < inputHeight; y++) {
+            int rowBase = rowOffsets[y];
+            for (int x = 0; x < inputWidth; x++) {
+                int src = rowBase + columnOffsets[x];
+
+                output.putFloat(out, NORMALIZED[pixels.get(src) & 0xFF]);
+                output.putFloat(out + 4, NORMALIZED[pixels.get(src + 1) & 0xFF]);
+                output.putFloat(out + 8, NORMALIZED[pixels.get(src + 2) & 0xFF]);
+                out += 12;
+            }
+        }
+    }
+
+    private void writeQuantized(ByteBuffer pixels, ByteBuffer output) {
+        byte[] table = quantized;
+        int out = 0;
+        for (int y = 0; y < inputHeight; y++) {
+            int rowBase = rowOffsets[y];
+            for (int x = 0; x < inputWidth; x++) {
+                int src = rowBase + columnOffsets[x];
+
+                output.put(out, table[pixels.get(src) & 0xFF]);
+                output.put(out + 1, table[pixels.get(src + 1) & 0xFF]);
+                output.put(out + 2, table[pixels.get(src + 2) & 0xFF]);
+                out += 3;
+            }
+        }
+    }
+
+    private void updateOffsets(int left, int top, int width, int height, int rowStride, int pixelStride,
+                               RegionMask currentMask) {
+        if (left == cachedLeft && top == cachedTop && width == cachedWidth && height == cachedHeight
+                && rowStride == cachedRowStride && pixelStride == cachedPixelStride && currentMask == cachedMask) {
+            return;
+        }
+
+        for (int x = 0; x < inputWidth; x++) {
+            sourceX[x] = left + (int) (((2L * x + 1) * width) / (2L * inputWidth));
+            columnOffsets[x] = sourceX[x] * pixelStride;
+        }
+
+        for (int y = 0; y < inputHeight; y++) {
+            sourceY[y] = top + (int) (((2L * y + 1) * height) / (2L * inputHeight));
+            rowOffsets[y] = sourceY[y] * rowStride;
+        }
+
+        updateMaskRuns(currentMask);
+        cachedMask = currentMask;
+
+        cachedLeft = left;
+        cachedTop = top;
+        cachedWidth = width;
+        cachedHeight = height;
+        cachedRowStride = rowStride;
+        cachedPixelStride = pixelStride;
+    }
+
+    private void updateMaskRuns(RegionMask currentMask) {
+        maskRunCount = 0;
+        if (currentMask == null) return;
+
+        int[] rect = maskRect;
+        for (int r = 0; r < currentMask.getExclusionCount(); r++) {
+            currentMask.getExclusion(r, rect);
+            int x0 = firstAtLeast(sourceX, rect[0]);
+            int x1 = firstAtLeast(sourceX, rect[2]);
+            int y0 = firstAtLeast(sourceY, rect[1]);
+            int y1 = firstAtLeast(sourceY, rect[3]);
+            if (x1 <= x0) continue;
+
+            for (int y = y0; y < y1; y++) {
+                if (maskRunCount * 2 == maskRuns.length) {
+                    maskRuns = Arrays.copyOf(maskRuns, Math.max(16, maskRuns.length * 2));
+                }
+                maskRuns[maskRunCount * 2] = y * inputWidth + x0;
+                maskRuns[maskRunCount * 2 + 1] = x1 - x0;
+                maskRunCount++;
+            }
+        }
+    }
+
+    private static int firstAtLeast(int[] sorted, int value) {
+        int i = 0;
+        while (i < sorted.length && sorted[i] < value) {
+            i++;
+        }
+        return i;
+    }
+}
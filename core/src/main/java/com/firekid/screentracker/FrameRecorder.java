@@ -0,0 +1,114 @@
+package com.firekid.screentracker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class FrameRecorder implements Closeable {
+
+    // Layout: header {int magic, int version, int width, int height, int frameCount},
+    // padded to HEADER_SIZE, then frameCount records of {long timestampNanos, width * height RGBA bytes}.
+    static final int MAGIC = 0x53544652;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FRAME_COUNT_OFFSET = 16;
+    static final int FRAME_HEADER_SIZE = 8;
+    static final int BYTES_PER_PIXEL = 4;
+
+    private final File path;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int maxFrames;
+    private final int frameSize;
+    private int frameCount = 0;
+
+    public FrameRecorder(File path, int width, int height, int maxFrames) throws IOException {
+        this.path = path;
+        this.width = width;
+        this.height = height;
+        this.maxFrames = maxFrames;
+        this.frameSize = frameSize(width, height);
+
+        long size = HEADER_SIZE + (long) frameSize * maxFrames;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recording too large: " + size + " bytes");
+        }
+
+        file = new RandomAccessFile(path, "rw");
+        file.setLength(size);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, width);
+        buffer.putInt(12, height);
+        buffer.putInt(FRAME_COUNT_OFFSET, 0);
+    }
+
+    static int frameSize(int width, int height) {
+        return FRAME_HEADER_SIZE + width * height * BYTES_PER_PIXEL;
+    }
+
+    public File getPath() {
+        return path;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public boolean isFull() {
+        return frameCount == maxFrames;
+    }
+
+    public boolean record(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                          long timestampNanos) {
+        if (isFull() || width != this.width || height != this.height) {
+            return false;
+        }
+
+        int offset = HEADER_SIZE + frameCount * frameSize;
+        buffer.putLong(offset, timestampNanos);
+        offset += FRAME_HEADER_SIZE;
+
+        int rowBytes = width * BYTES_PER_PIXEL;
+        ByteBuffer source = pixels.duplicate();
+        ByteBuffer target = buffer.duplicate();
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * rowStride;
+            target.position(offset + y * rowBytes);
+
+            if (pixelStride == BYTES_PER_PIXEL) {
+                source.limit(rowStart + rowBytes);
+                source.position(rowStart);
+                target.put(source);
+                source.limit(source.capacity());
+            } else {
+                for (int x = 0; x < width; x++) {
+                    int index = rowStart + x * pixelStride;
+                    target.put(pixels.get(index));
+                    target.put(pixels.get(index + 1));
+                    target.put(pixels.get(index + 2));
+                    target.put(pixels.get(index + 3));
+                }
+            }
+        }
+
+        frameCount++;
+        buffer.putInt(FRAME_COUNT_OFFSET, frameCount);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        file.setLength(HEADER_SIZE + (long) frameSize * frameCount);
+        file.close();
+    }
+}
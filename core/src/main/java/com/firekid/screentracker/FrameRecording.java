@@ -0,0 +1,84 @@
+package com.firekid.screentracker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class FrameRecording implements Closeable {
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int frameCount;
+    private final int frameSize;
+
+    public FrameRecording(File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        long size = file.length();
+        if (size < FrameRecorder.HEADER_SIZE || size > Integer.MAX_VALUE) {
+            file.close();
+            throw new IOException("Not a frame recording: " + path);
+        }
+
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt(0) != FrameRecorder.MAGIC || buffer.getInt(4) != FrameRecorder.VERSION) {
+            file.close();
+            throw new IOException("Not a frame recording: " + path);
+        }
+
+        width = buffer.getInt(8);
+        height = buffer.getInt(12);
+        frameSize = FrameRecorder.frameSize(width, height);
+        frameCount = (int) Math.min(buffer.getInt(FrameRecorder.FRAME_COUNT_OFFSET),
+                (size - FrameRecorder.HEADER_SIZE) / frameSize);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRowStride() {
+        return width * FrameRecorder.BYTES_PER_PIXEL;
+    }
+
+    public int getPixelStride() {
+        return FrameRecorder.BYTES_PER_PIXEL;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public long getTimestamp(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    public ByteBuffer getFrame(int index) {
+        ByteBuffer frame = buffer.duplicate();
+        int start = offset(index) + FrameRecorder.FRAME_HEADER_SIZE;
+        frame.limit(start + frameSize - FrameRecorder.FRAME_HEADER_SIZE);
+        frame.position(start);
+        return frame.slice();
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+        }
+        return FrameRecorder.HEADER_SIZE + index * frameSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.firekid.screentracker;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+public class FrameReplayer {
+
+    public static class Report {
+        public final int frames;
+        public final int results;
+        public final int targetFrames;
+        public final long elapsedNanos;
+        public final long checksum;
+
+        Report(int frames, int results, int targetFrames, long elapsedNanos, long checksum) {
+            this.frames = frames;
+            this.results = results;
+            this.targetFrames = targetFrames;
+            this.elapsedNanos = elapsedNanos;
+            this.checksum = checksum;
+        }
+
+        public double getFps() {
+            return elapsedNanos == 0 ? 0 : frames * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "frames=%d results=%d targets=%d elapsed=%.2fs fps=%.1f checksum=%016x",
+                    frames, results, targetFrames, elapsedNanos / 1e9, getFps(), checksum);
+        }
+    }
+
+    private final FrameRecording recording;
+    private final Detector detector;
+    private final TrackingManager trackingManager;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private PrintWriter trace;
+    private FramePipeline pipeline;
+
+    private int results;
+    private int targetFrames;
+    private long checksum;
+
+    public FrameReplayer(FrameRecording recording, Detector detector, TrackingManager trackingManager) {
+        this.recording = recording;
+        this.detector = detector;
+        this.trackingManager = trackingManager;
+    }
+
+    public void setTrace(PrintWriter trace) {
+        this.trace = trace;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Report run(boolean realTime) throws InterruptedException {
+        pipeline = new FramePipeline(detector, trackingManager, new FramePipeline.Listener() {
+            @Override
+            public void onFrameResult(long sequence) {
+                onResult(pipeline.acquireResult());
+            }
+        }, false);
+        pipeline.setMetrics(metrics);
+
+        results = 0;
+        targetFrames = 0;
+        checksum = 17;
+
+        int frames = recording.getFrameCount();
+        long firstTimestamp = frames > 0 ? recording.getTimestamp(0) : 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < frames; i++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            long timestamp = recording.getTimestamp(i);
+            if (realTime) {
+                long wait = (timestamp - firstTimestamp) - (System.nanoTime() - start);
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+
+            long frameStart = System.nanoTime();
+            metrics.onCaptured();
+            pipeline.submitFrame(recording.getFrame(i), recording.getWidth(), recording.getHeight(),
+                    recording.getRowStride(), recording.getPixelStride(), timestamp);
+            metrics.endToEnd.record(System.nanoTime() - frameStart);
+        }
+
+        return new Report(frames, results, targetFrames, System.nanoTime() - start, checksum);
+    }
+
+    private void onResult(FrameResult result) {
+        DetectionBuffer detections = result.detections;
+        results++;
+        checksum = checksum * 31 + detections.count;
+        for (int i = 0; i < detections.count; i++) {
+            checksum = checksum * 31 + Math.round(detections.left[i]);
+            checksum = checksum * 31 + Math.round(detections.top[i]);
+            checksum = checksum * 31 + Math.round(detections.right[i]);
+            checksum = checksum * 31 + Math.round(detections.bottom[i]);
+        }
+
+        if (result.hasPanOffset) {
+            targetFrames++;
+            checksum = checksum * 31 + result.panOffsetX;
+            checksum = checksum * 31 + result.panOffsetY;
+        }
+
+        if (trace != null) {
+            trace.println(result.captureTimeNanos + " " + detections.count + " "
+                    + (result.hasPanOffset ? result.panOffsetX + " " + result.panOffsetY : "-"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: FrameReplayer <recording> <detector-class> [--realtime] [--trace <file>]");
+            System.exit(2);
+        }
+
+        boolean realTime = false;
+        File traceFile = null;
+        for (int i = 2; i < args.length; i++) {
+            if ("--realtime".equals(args[i])) {
+                realTime = true;
+            } else if ("--trace".equals(args[i]) && i + 1 < args.length) {
+                traceFile = new File(args[++i]);
+            }
+        }
+
+        Detector detector = (Detector) Class.forName(args[1]).getConstructor().newInstance();
+        try (FrameRecording recording = new FrameRecording(new File(args[0]))) {
+            TrackingManager trackingManager = new TrackingManager();
+            trackingManager.setMidpoint(recording.getWidth() / 2, recording.getHeight() / 2);
+
+            FrameReplayer replayer = new FrameReplayer(recording, detector, trackingManager);
+            PrintWriter trace = traceFile != null ? new PrintWriter(traceFile, "UTF-8") : null;
+            replayer.setTrace(trace);
+            try {
+                System.out.println(replayer.run(realTime));
+                System.out.println(replayer.getMetrics().summary());
+            } finally {
+                if (trace != null) {
+                    trace.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.firekid.screentracker;
+
+public class FrameResult {
+
+    public final DetectionBuffer detections;
+    public long sequence;
+    public long captureTimeNanos;
+    public long publishTimeNanos;
+
+    public boolean hasTarget;
+    public int targetX;
+    public int targetY;
+    public float targetLeft;
+    public float targetTop;
+    public float targetRight;
+    public float targetBottom;
+
+    public boolean hasPanOffset;
+    public int panOffsetX;
+    public int panOffsetY;
+
+    public FrameResult(int capacity) {
+        detections = new DetectionBuffer(capacity);
+    }
+}
@@ -0,0 +1,35 @@
+package com.firekid.screentracker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FrameResultExchange {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    private final FrameResult[] results = new FrameResult[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    public FrameResultExchange(int capacity) {
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new FrameResult(capacity);
+        }
+    }
+
+    public FrameResult getBackBuffer() {
+        return results[back];
+    }
+
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    public FrameResult acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return results[front];
+    }
+}
@@ -0,0 +1,125 @@
+package com.firekid.screentracker;
+
+public class FrameScheduler {
+
+    private static final long ACTIVE_INTERVAL_NANOS = 33_000_000L;
+    private static final long NORMAL_INTERVAL_NANOS = 66_000_000L;
+    private static final long IDLE_INTERVAL_NANOS = 250_000_000L;
+    private static final long MAX_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int IDLE_AFTER_FRAMES = 30;
+    private static final int MOVING_THRESHOLD_PX = 8;
+    private static final int MOVING_HOLD_FRAMES = 10;
+    private static final float LATENCY_SMOOTHING = 0.1f;
+    private static final int LOW_BATTERY_PERCENT = 20;
+    private static final int MAX_FRAMES_IN_FLIGHT = 2;
+
+    private long nextFrameNanos = 0;
+    private float latencyNanos = 0;
+    private float preprocessNanos = 0;
+    private float inferenceNanos = 0;
+
+    private int framesWithoutDetections = 0;
+    private int framesSinceMovement = Integer.MAX_VALUE;
+    private boolean hadTarget = false;
+    private int lastTargetX;
+    private int lastTargetY;
+
+    private float thermalFactor = 1f;
+    private boolean powerSave = false;
+    private int batteryPercent = 100;
+    private boolean charging = false;
+
+    public synchronized boolean shouldProcess(long nowNanos) {
+        if (nowNanos < nextFrameNanos) {
+            return false;
+        }
+
+        nextFrameNanos = nowNanos + getIntervalNanos();
+        return true;
+    }
+
+    public synchronized long getDelayNanos(long nowNanos) {
+        return Math.max(0, nextFrameNanos - nowNanos);
+    }
+
+    public synchronized void onFrameLatency(long latencyNanos) {
+        this.latencyNanos = smooth(this.latencyNanos, latencyNanos);
+    }
+
+    public synchronized void onPreprocessTime(long preprocessNanos) {
+        this.preprocessNanos = smooth(this.preprocessNanos, preprocessNanos);
+    }
+
+    public synchronized void onInferenceTime(long inferenceNanos) {
+        this.inferenceNanos = smooth(this.inferenceNanos, inferenceNanos);
+    }
+
+    private static float smooth(float average, long sample) {
+        if (sample <= 0) return average;
+        return average == 0 ? sample : average + (sample - average) * LATENCY_SMOOTHING;
+    }
+
+    public synchronized void onFrameResult(boolean hasDetections, boolean hasTarget, int targetX, int targetY) {
+        framesWithoutDetections = hasDetections ? 0 : framesWithoutDetections + 1;
+
+        if (hasTarget && hadTarget
+                && (Math.abs(targetX - lastTargetX) > MOVING_THRESHOLD_PX
+                || Math.abs(targetY - lastTargetY) > MOVING_THRESHOLD_PX)) {
+            framesSinceMovement = 0;
+        } else if (framesSinceMovement < Integer.MAX_VALUE) {
+            framesSinceMovement++;
+        }
+
+        hadTarget = hasTarget;
+        lastTargetX = targetX;
+        lastTargetY = targetY;
+    }
+
+    public synchronized void setThermalFactor(float thermalFactor) {
+        this.thermalFactor = Math.max(1f, thermalFactor);
+    }
+
+    public synchronized void setPowerSave(boolean powerSave) {
+        this.powerSave = powerSave;
+    }
+
+    public synchronized void setBattery(int percent, boolean charging) {
+        this.batteryPercent = percent;
+        this.charging = charging;
+    }
+
+    public synchronized long getIntervalNanos() {
+        long interval;
+        if (framesSinceMovement < MOVING_HOLD_FRAMES) {
+            interval = ACTIVE_INTERVAL_NANOS;
+        } else if (framesWithoutDetections >= IDLE_AFTER_FRAMES) {
+            interval = IDLE_INTERVAL_NANOS;
+        } else {
+            interval = NORMAL_INTERVAL_NANOS;
+        }
+
+        interval = Math.max(interval, (long) Math.max(preprocessNanos, inferenceNanos));
+        interval = Math.max(interval, (long) latencyNanos / MAX_FRAMES_IN_FLIGHT);
+        interval = (long) (interval * thermalFactor);
+
+        if (!charging && (powerSave || batteryPercent <= LOW_BATTERY_PERCENT)) {
+            interval *= 2;
+        }
+
+        return Math.min(interval, MAX_INTERVAL_NANOS);
+    }
+
+    public long getIntervalMillis() {
+        return getIntervalNanos() / 1_000_000L;
+    }
+
+    public synchronized void reset() {
+        nextFrameNanos = 0;
+        latencyNanos = 0;
+        preprocessNanos = 0;
+        inferenceNanos = 0;
+        framesWithoutDetections = 0;
+        framesSinceMovement = Integer.MAX_VALUE;
+        hadTarget = false;
+    }
+}
@@ -0,0 +1,17 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+
+public class FrameSlot {
+
+    public final ByteBuffer input;
+    public int regionLeft;
+    public int regionTop;
+    public int regionWidth;
+    public int regionHeight;
+    public long captureTimeNanos;
+
+    public FrameSlot(ByteBuffer input) {
+        this.input = input;
+    }
+}
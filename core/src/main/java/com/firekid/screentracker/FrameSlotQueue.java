@@ -0,0 +1,87 @@
+package com.firekid.screentracker;
+
+public class FrameSlotQueue {
+
+    private final FrameSlot[] free;
+    private final FrameSlot[] ready;
+    private int freeCount;
+    private int readyHead;
+    private int readyCount;
+
+    private long published;
+    private long dropped;
+    private long occupancySum;
+
+    public FrameSlotQueue(FrameSlot[] slots, int capacity) {
+        if (slots.length < capacity + 2) {
+            throw new IllegalArgumentException("Need at least capacity + 2 slots");
+        }
+
+        this.free = new FrameSlot[slots.length];
+        this.ready = new FrameSlot[capacity];
+        System.arraycopy(slots, 0, free, 0, slots.length);
+        this.freeCount = slots.length;
+    }
+
+    public synchronized FrameSlot acquire() {
+        if (freeCount == 0) {
+            return null;
+        }
+        return free[--freeCount];
+    }
+
+    public synchronized boolean publish(FrameSlot slot) {
+        boolean displaced = false;
+        if (readyCount == ready.length) {
+            free[freeCount++] = ready[readyHead];
+            readyHead = (readyHead + 1) % ready.length;
+            readyCount--;
+            dropped++;
+            displaced = true;
+        }
+
+        ready[(readyHead + readyCount) % ready.length] = slot;
+        readyCount++;
+        published++;
+        occupancySum += readyCount;
+        notifyAll();
+        return displaced;
+    }
+
+    public synchronized FrameSlot take() throws InterruptedException {
+        while (readyCount == 0) {
+            wait();
+        }
+
+        FrameSlot slot = ready[readyHead];
+        ready[readyHead] = null;
+        readyHead = (readyHead + 1) % ready.length;
+        readyCount--;
+        return slot;
+    }
+
+    public synchronized void release(FrameSlot slot) {
+        free[freeCount++] = slot;
+    }
+
+    public synchronized int size() {
+        return readyCount;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized float getAverageOccupancy() {
+        return published == 0 ? 0f : occupancySum / (float) published;
+    }
+
+    public synchronized void clear() {
+        while (readyCount > 0) {
+            free[freeCount++] = ready[readyHead];
+            ready[readyHead] = null;
+            readyHead = (readyHead + 1) % ready.length;
+            readyCount--;
+        }
+    }
+}
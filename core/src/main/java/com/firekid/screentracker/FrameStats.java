@@ -0,0 +1,62 @@
+package com.firekid.screentracker;
+
+import java.util.Locale;
+
+public class FrameStats {
+
+    private static final long JANK_THRESHOLD_NANOS = 16_666_667L;
+
+    private long frameCount;
+    private long jankFrames;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long totalMainThreadNanos;
+    private long maxMainThreadNanos;
+
+    public synchronized void recordFrame(long latencyNanos, long mainThreadNanos) {
+        frameCount++;
+        totalLatencyNanos += latencyNanos;
+        totalMainThreadNanos += mainThreadNanos;
+
+        if (latencyNanos > maxLatencyNanos) {
+            maxLatencyNanos = latencyNanos;
+        }
+
+        if (mainThreadNanos > maxMainThreadNanos) {
+            maxMainThreadNanos = mainThreadNanos;
+        }
+
+        if (mainThreadNanos > JANK_THRESHOLD_NANOS) {
+            jankFrames++;
+        }
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    public synchronized String summary() {
+        if (frameCount == 0) {
+            return "frames=0";
+        }
+
+        return String.format(Locale.US,
+                "frames=%d latency avg=%.1fms max=%.1fms main avg=%.1fms max=%.1fms jank=%d (%.1f%%)",
+                frameCount,
+                totalLatencyNanos / 1e6 / frameCount,
+                maxLatencyNanos / 1e6,
+                totalMainThreadNanos / 1e6 / frameCount,
+                maxMainThreadNanos / 1e6,
+                jankFrames,
+                100.0 * jankFrames / frameCount);
+    }
+
+    public synchronized void reset() {
+        frameCount = 0;
+        jankFrames = 0;
+        totalLatencyNanos = 0;
+        maxLatencyNanos = 0;
+        totalMainThreadNanos = 0;
+        maxMainThreadNanos = 0;
+    }
+}
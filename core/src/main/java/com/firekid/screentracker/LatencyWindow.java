@@ -0,0 +1,53 @@
+package com.firekid.screentracker;
+
+public class LatencyWindow {
+
+    private final LatencyHistogram source;
+    private final long[] previous = new long[LatencyHistogram.BUCKET_COUNT];
+    private final long[] current = new long[LatencyHistogram.BUCKET_COUNT];
+    private long previousNanos = System.nanoTime();
+
+    private long frames;
+    private float fps;
+    private long p50Nanos;
+    private long p99Nanos;
+
+    public LatencyWindow(LatencyHistogram source) {
+        this.source = source;
+        source.copyCounts(previous);
+    }
+
+    public void sample(long nowNanos) {
+        source.copyCounts(current);
+
+        frames = 0;
+        for (int i = 0; i < current.length; i++) {
+            long c = current[i];
+            current[i] = c - previous[i];
+            previous[i] = c;
+            frames += current[i];
+        }
+
+        long elapsed = Math.max(1, nowNanos - previousNanos);
+        previousNanos = nowNanos;
+        fps = frames * 1e9f / elapsed;
+        p50Nanos = LatencyHistogram.percentileNanos(current, 50);
+        p99Nanos = LatencyHistogram.percentileNanos(current, 99);
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public float getFps() {
+        return fps;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+}
@@ -0,0 +1,68 @@
+package com.firekid.screentracker;
+
+class MotionFilter {
+
+    private final float processNoise;
+    private final float measurementNoise;
+    private final float initialVelocityVariance;
+
+    private boolean initialized = false;
+    private float position;
+    private float velocity;
+    private float p00;
+    private float p01;
+    private float p11;
+
+    MotionFilter(float processNoise, float measurementNoise, float initialVelocityVariance) {
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        this.initialVelocityVariance = initialVelocityVariance;
+    }
+
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    void reset() {
+        initialized = false;
+    }
+
+    void update(float measurement, float dt) {
+        if (!initialized) {
+            position = measurement;
+            velocity = 0f;
+            p00 = measurementNoise;
+            p01 = 0f;
+            p11 = initialVelocityVariance;
+            initialized = true;
+            return;
+        }
+
+        if (dt > 0f) {
+            position += velocity * dt;
+            float dt2 = dt * dt;
+            p00 += dt * (2f * p01 + dt * p11) + processNoise * dt2 * dt / 3f;
+            p01 += dt * p11 + processNoise * dt2 / 2f;
+            p11 += processNoise * dt;
+        }
+
+        float innovation = measurement - position;
+        float s = p00 + measurementNoise;
+        float k0 = p00 / s;
+        float k1 = p01 / s;
+
+        position += k0 * innovation;
+        velocity += k1 * innovation;
+        p11 -= k1 * p01;
+        p01 -= k0 * p01;
+        p00 -= k0 * p00;
+    }
+
+    float predict(float dt) {
+        return position + velocity * dt;
+    }
+
+    float getVelocity() {
+        return velocity;
+    }
+}
@@ -0,0 +1,273 @@
+package com.firekid.screentracker;
+
+import java.util.Arrays;
+
+public class MultiObjectTracker {
+
+    private static final int DEFAULT_MAX_TRACKS = 64;
+    private static final int DEFAULT_MAX_DETECTIONS = 128;
+    private static final int MAX_MISSES = 10;
+    private static final float MIN_MATCH_SCORE = 0.1f;
+    private static final float DISTANCE_WEIGHT = 0.5f;
+    private static final float DISTANCE_GATE = 1.5f;
+
+    private final int maxTracks;
+    private final int maxDetections;
+
+    private final int[] ids;
+    private final int[] classIds;
+    private final float[] x1;
+    private final float[] y1;
+    private final float[] x2;
+    private final float[] y2;
+    private final int[] ages;
+    private final int[] misses;
+    private int trackCount = 0;
+    private int nextId = 1;
+
+    private final long[] pairs;
+    private final boolean[] trackMatched;
+    private final boolean[] detectionMatched;
+    private final int[] detectionTrackIds;
+
+    private volatile int lockedTrackId = -1;
+
+    public MultiObjectTracker() {
+        this(DEFAULT_MAX_TRACKS, DEFAULT_MAX_DETECTIONS);
+    }
+
+    public MultiObjectTracker(int maxTracks, int maxDetections) {
+        this.maxTracks = maxTracks;
+        this.maxDetections = maxDetections;
+        ids = new int[maxTracks];
+        classIds = new int[maxTracks];
+        x1 = new float[maxTracks];
+        y1 = new float[maxTracks];
+        x2 = new float[maxTracks];
+        y2 = new float[maxTracks];
+        ages = new int[maxTracks];
+        misses = new int[maxTracks];
+        pairs = new long[maxTracks * maxDetections];
+        trackMatched = new boolean[maxTracks];
+        detectionMatched = new boolean[maxDetections];
+        detectionTrackIds = new int[maxDetections];
+    }
+
+    public void update(DetectionBuffer detections) {
+        update(detections, -Float.MAX_VALUE, -Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+    }
+
+    public void update(DetectionBuffer detections, float regionLeft, float regionTop,
+                       float regionRight, float regionBottom) {
+        int detectionCount = Math.min(detections.count, maxDetections);
+        int pairCount = 0;
+
+        for (int t = 0; t < trackCount; t++) {
+            trackMatched[t] = false;
+            float trackDiagonal = diagonal(x1[t], y1[t], x2[t], y2[t]);
+            float trackCenterX = (x1[t] + x2[t]) / 2;
+            float trackCenterY = (y1[t] + y2[t]) / 2;
+
+            for (int d = 0; d < detectionCount; d++) {
+                if (detections.classId[d] != classIds[t]) continue;
+
+                float score = iou(t, detections, d);
+                float dx = (detections.left[d] + detections.right[d]) / 2 - trackCenterX;
+                float dy = (detections.top[d] + detections.bottom[d]) / 2 - trackCenterY;
+                float distance = (float) Math.sqrt(dx * dx + dy * dy);
+                float gate = trackDiagonal * DISTANCE_GATE;
+                if (gate > 0 && distance < gate) {
+                    score += DISTANCE_WEIGHT * (1 - distance / gate);
+                }
+
+                if (score > MIN_MATCH_SCORE) {
+                    pairs[pairCount++] = ((long) Float.floatToIntBits(score) << 32) | ((long) t << 16) | d;
+                }
+            }
+        }
+
+        for (int d = 0; d < detectionCount; d++) {
+            detectionMatched[d] = false;
+            detectionTrackIds[d] = -1;
+        }
+
+        Arrays.sort(pairs, 0, pairCount);
+        for (int p = pairCount - 1; p >= 0; p--) {
+            int t = (int) ((pairs[p] >>> 16) & 0xFFFF);
+            int d = (int) (pairs[p] & 0xFFFF);
+            if (trackMatched[t] || detectionMatched[d]) continue;
+
+            x1[t] = detections.left[d];
+            y1[t] = detections.top[d];
+            x2[t] = detections.right[d];
+            y2[t] = detections.bottom[d];
+            ages[t]++;
+            misses[t] = 0;
+            trackMatched[t] = true;
+            detectionMatched[d] = true;
+            detectionTrackIds[d] = ids[t];
+        }
+
+        int previousCount = trackCount;
+        for (int t = previousCount - 1; t >= 0; t--) {
+            if (trackMatched[t]) continue;
+
+            float centerX = (x1[t] + x2[t]) / 2;
+            float centerY = (y1[t] + y2[t]) / 2;
+            if (centerX < regionLeft || centerX > regionRight || centerY < regionTop || centerY > regionBottom) {
+                continue;
+            }
+
+            misses[t]++;
+            ages[t]++;
+            if (misses[t] > MAX_MISSES) {
+                if (ids[t] == lockedTrackId) {
+                    lockedTrackId = -1;
+                }
+                removeTrack(t);
+            }
+        }
+
+        for (int d = 0; d < detectionCount && trackCount < maxTracks; d++) {
+            if (detectionMatched[d]) continue;
+
+            int t = trackCount++;
+            ids[t] = nextId++;
+            classIds[t] = detections.classId[d];
+            x1[t] = detections.left[d];
+            y1[t] = detections.top[d];
+            x2[t] = detections.right[d];
+            y2[t] = detections.bottom[d];
+            ages[t] = 1;
+            misses[t] = 0;
+            detectionTrackIds[d] = ids[t];
+        }
+    }
+
+    private void removeTrack(int t) {
+        int last = --trackCount;
+        if (t != last) {
+            ids[t] = ids[last];
+            classIds[t] = classIds[last];
+            x1[t] = x1[last];
+            y1[t] = y1[last];
+            x2[t] = x2[last];
+            y2[t] = y2[last];
+            ages[t] = ages[last];
+            misses[t] = misses[last];
+            trackMatched[t] = trackMatched[last];
+        }
+    }
+
+    private float iou(int t, DetectionBuffer detections, int d) {
+        float left = Math.max(x1[t], detections.left[d]);
+        float top = Math.max(y1[t], detections.top[d]);
+        float right = Math.min(x2[t], detections.right[d]);
+        float bottom = Math.min(y2[t], detections.bottom[d]);
+        if (right <= left || bottom <= top) {
+            return 0f;
+        }
+
+        float intersection = (right - left) * (bottom - top);
+        float union = (x2[t] - x1[t]) * (y2[t] - y1[t])
+                + (detections.right[d] - detections.left[d]) * (detections.bottom[d] - detections.top[d])
+                - intersection;
+        return union > 0 ? intersection / union : 0f;
+    }
+
+    private static float diagonal(float left, float top, float right, float bottom) {
+        float w = right - left;
+        float h = bottom - top;
+        return (float) Math.sqrt(w * w + h * h);
+    }
+
+    public int lockNearest(int x, int y) {
+        int best = -1;
+        float bestDistance = Float.MAX_VALUE;
+        for (int t = 0; t < trackCount; t++) {
+            if (misses[t] > 0) continue;
+
+            float dx = (x1[t] + x2[t]) / 2 - x;
+            float dy = (y1[t] + y2[t]) / 2 - y;
+            float distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = t;
+            }
+        }
+
+        lockedTrackId = best >= 0 ? ids[best] : -1;
+        return best;
+    }
+
+    public void unlock() {
+        lockedTrackId = -1;
+    }
+
+    public int getLockedTrackId() {
+        return lockedTrackId;
+    }
+
+    public int getLockedIndex() {
+        int id = lockedTrackId;
+        if (id < 0) return -1;
+
+        for (int t = 0; t < trackCount; t++) {
+            if (ids[t] == id) return t;
+        }
+        return -1;
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    public int getTrackId(int index) {
+        return ids[index];
+    }
+
+    public int getClassId(int index) {
+        return classIds[index];
+    }
+
+    public float getLeft(int index) {
+        return x1[index];
+    }
+
+    public float getTop(int index) {
+        return y1[index];
+    }
+
+    public float getRight(int index) {
+        return x2[index];
+    }
+
+    public float getBottom(int index) {
+        return y2[index];
+    }
+
+    public int getCenterX(int index) {
+        return (int) ((x1[index] + x2[index]) / 2);
+    }
+
+    public int getCenterY(int index) {
+        return (int) ((y1[index] + y2[index]) / 2);
+    }
+
+    public int getAge(int index) {
+        return ages[index];
+    }
+
+    public int getMisses(int index) {
+        return misses[index];
+    }
+
+    public int getDetectionTrackId(int detectionIndex) {
+        return detectionTrackIds[detectionIndex];
+    }
+
+    public void reset() {
+        trackCount = 0;
+        lockedTrackId = -1;
+    }
+}
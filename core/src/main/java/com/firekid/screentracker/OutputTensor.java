@@ -0,0 +1,43 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class OutputTensor {
+
+    private final ByteBuffer buffer;
+    private final TensorFormat format;
+    private final float scale;
+    private final int zeroPoint;
+
+    public OutputTensor(int numBytes, TensorFormat format, float scale, int zeroPoint) {
+        this.buffer = ByteBuffer.allocateDirect(numBytes);
+        this.buffer.order(ByteOrder.nativeOrder());
+        this.format = format;
+        this.scale = scale;
+        this.zeroPoint = zeroPoint;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return buffer.capacity() / format.bytesPerElement;
+    }
+
+    public void rewind() {
+        buffer.rewind();
+    }
+
+    public float get(int index) {
+        switch (format) {
+            case UINT8:
+                return ((buffer.get(index) & 0xFF) - zeroPoint) * scale;
+            case INT8:
+                return (buffer.get(index) - zeroPoint) * scale;
+            default:
+                return buffer.getFloat(index << 2);
+        }
+    }
+}
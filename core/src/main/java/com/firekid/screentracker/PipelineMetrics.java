@@ -0,0 +1,70 @@
+package com.firekid.screentracker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PipelineMetrics {
+
+    public final StageStats capture = new StageStats("capture");
+    public final StageStats preprocess = new StageStats("preprocess");
+    public final StageStats inference = new StageStats("inference");
+    public final StageStats decode = new StageStats("decode");
+    public final StageStats track = new StageStats("track");
+    public final StageStats draw = new StageStats("draw");
+    public final StageStats endToEnd = new StageStats("end-to-end");
+
+    private final StageStats[] stages = {capture, preprocess, inference, decode, track, draw, endToEnd};
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public void onCaptured() {
+        captured.incrementAndGet();
+    }
+
+    public void onSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    public void onDropped() {
+        dropped.incrementAndGet();
+    }
+
+    public long getCaptured() {
+        return captured.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public String countersSummary() {
+        return "captured=" + captured.get() + " skipped=" + skipped.get() + " dropped=" + dropped.get();
+    }
+
+    public String summary() {
+        StringBuilder builder = new StringBuilder(countersSummary());
+        for (StageStats stage : stages) {
+            builder.append(" | ").append(stage.summary());
+        }
+        return builder.toString();
+    }
+
+    public void dump(Writer out) throws IOException {
+        out.write(String.format(Locale.US, "uptime %.1fs%n", (System.nanoTime() - startNanos) / 1e9));
+        out.write(countersSummary());
+        out.write(String.format("%n"));
+
+        for (StageStats stage : stages) {
+            out.write(String.format("%n%s%n", stage.summary()));
+            stage.getHistogram().dump(out);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.firekid.screentracker;
+
+import java.util.Arrays;
+
+public class RegionMask {
+
+    public static final RegionMask NONE = new RegionMask(null, new int[0]);
+
+    private final int[] activeArea;
+    private final int[] exclusions;
+
+    private RegionMask(int[] activeArea, int[] exclusions) {
+        this.activeArea = activeArea;
+        this.exclusions = exclusions;
+    }
+
+    public boolean isEmpty() {
+        return activeArea == null && exclusions.length == 0;
+    }
+
+    public boolean hasActiveArea() {
+        return activeArea != null;
+    }
+
+    public int getExclusionCount() {
+        return exclusions.length / 4;
+    }
+
+    public boolean getActiveArea(int[] out) {
+        if (activeArea == null) {
+            return false;
+        }
+        System.arraycopy(activeArea, 0, out, 0, 4);
+        return true;
+    }
+
+    public void getExclusion(int index, int[] out) {
+        System.arraycopy(exclusions, index * 4, out, 0, 4);
+    }
+
+    public RegionMask withActiveArea(int left, int top, int right, int bottom) {
+        return new RegionMask(normalize(left, top, right, bottom), exclusions);
+    }
+
+    public RegionMask withExclusion(int left, int top, int right, int bottom) {
+        int[] extended = Arrays.copyOf(exclusions, exclusions.length + 4);
+        System.arraycopy(normalize(left, top, right, bottom), 0, extended, exclusions.length, 4);
+        return new RegionMask(activeArea, extended);
+    }
+
+    public RegionMask toCapture(CaptureTransform transform) {
+        if (transform == null || transform.isIdentity() || isEmpty()) {
+            return this;
+        }
+
+        int[] area = activeArea != null ? mapOutward(activeArea, 0, transform) : null;
+        int[] mapped = new int[exclusions.length];
+        for (int i = 0; i < exclusions.length; i += 4) {
+            System.arraycopy(mapOutward(exclusions, i, transform), 0, mapped, i, 4);
+        }
+        return new RegionMask(area, mapped);
+    }
+
+    public boolean isExcluded(float x, float y) {
+        for (int i = 0; i < exclusions.length; i += 4) {
+            if (x >= exclusions[i] && y >= exclusions[i + 1] && x < exclusions[i + 2] && y < exclusions[i + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void confine(int frameWidth, int frameHeight, int[] region) {
+        if (activeArea == null) return;
+
+        int areaLeft = Math.max(0, activeArea[0]);
+        int areaTop = Math.max(0, activeArea[1]);
+        int areaRight = Math.min(frameWidth, activeArea[2]);
+        int areaBottom = Math.min(frameHeight, activeArea[3]);
+        if (areaRight <= areaLeft || areaBottom <= areaTop) return;
+
+        int left = Math.max(region[0], areaLeft);
+        int top = Math.max(region[1], areaTop);
+        int right = Math.min(region[0] + region[2], areaRight);
+        int bottom = Math.min(region[1] + region[3], areaBottom);
+        if (right <= left || bottom <= top) {
+            left = areaLeft;
+            top = areaTop;
+            right = areaRight;
+            bottom = areaBottom;
+        }
+
+        region[0] = left;
+        region[1] = top;
+        region[2] = right - left;
+        region[3] = bottom - top;
+    }
+
+    public void filter(DetectionBuffer detections) {
+        if (exclusions.length == 0) return;
+
+        int kept = 0;
+        for (int i = 0; i < detections.count; i++) {
+            if (isExcluded((detections.left[i] + detections.right[i]) * 0.5f,
+                    (detections.top[i] + detections.bottom[i]) * 0.5f)) {
+                continue;
+            }
+
+            if (kept != i) {
+                detections.left[kept] = detections.left[i];
+                detections.top[kept] = detections.top[i];
+                detections.right[kept] = detections.right[i];
+                detections.bottom[kept] = detections.bottom[i];
+                detections.confidence[kept] = detections.confidence[i];
+                detections.classId[kept] = detections.classId[i];
+            }
+            kept++;
+        }
+        detections.count = kept;
+    }
+
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        int[] area = activeArea != null ? activeArea : new int[4];
+        for (int value : area) {
+            builder.append(value).append(',');
+        }
+        for (int value : exclusions) {
+            builder.append(value).append(',');
+        }
+        builder.setLength(builder.length() - 1);
+        return builder.toString();
+    }
+
+    public static RegionMask decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return NONE;
+        }
+
+        String[] parts = value.split(",");
+        if (parts.length < 4 || parts.length % 4 != 0) {
+            throw new IllegalArgumentException("Malformed region mask: " + value);
+        }
+
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+
+        int[] area = values[2] > values[0] && values[3] > values[1] ? Arrays.copyOf(values, 4) : null;
+        return new RegionMask(area, Arrays.copyOfRange(values, 4, values.length));
+    }
+
+    private static int[] normalize(int left, int top, int right, int bottom) {
+        return new int[]{Math.min(left, right), Math.min(top, bottom), Math.max(left, right), Math.max(top, bottom)};
+    }
+
+    private static int[] mapOutward(int[] rect, int offset, CaptureTransform transform) {
+        return new int[]{
+                (int) Math.floor(transform.toCaptureX(rect[offset])),
+                (int) Math.floor(transform.toCaptureY(rect[offset + 1])),
+                (int) Math.ceil(transform.toCaptureX(rect[offset + 2])),
+                (int) Math.ceil(transform.toCaptureY(rect[offset + 3]))
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.firekid.screentracker;
+
+public class RoiTracker {
+
+    private static final int FULL_FRAME_INTERVAL = 15;
+    private static final float CONTEXT_SCALE = 2.5f;
+
+    private final int inputWidth;
+    private final int inputHeight;
+
+    private boolean enabled = true;
+    private boolean locked = false;
+    private float targetX;
+    private float targetY;
+    private float targetSize;
+    private int framesSinceFullFrame = 0;
+    private boolean fullFrame = true;
+
+    public RoiTracker(int inputWidth, int inputHeight) {
+        this.inputWidth = Math.max(1, inputWidth);
+        this.inputHeight = Math.max(1, inputHeight);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            locked = false;
+        }
+    }
+
+    public boolean isFullFrame() {
+        return fullFrame;
+    }
+
+    public void selectRegion(int frameWidth, int frameHeight, int[] region) {
+        if (!enabled || !locked || framesSinceFullFrame >= FULL_FRAME_INTERVAL) {
+            region[0] = 0;
+            region[1] = 0;
+            region[2] = frameWidth;
+            region[3] = frameHeight;
+            framesSinceFullFrame = 0;
+            fullFrame = true;
+            return;
+        }
+
+        float side = Math.max(Math.max(inputWidth, inputHeight), targetSize * CONTEXT_SCALE);
+        int width = Math.min(frameWidth, Math.round(side * inputWidth / Math.max(inputWidth, inputHeight)));
+        int height = Math.min(frameHeight, Math.round(side * inputHeight / Math.max(inputWidth, inputHeight)));
+
+        int left = Math.round(targetX - width / 2f);
+        int top = Math.round(targetY - height / 2f);
+        left = Math.max(0, Math.min(left, frameWidth - width));
+        top = Math.max(0, Math.min(top, frameHeight - height));
+
+        region[0] = left;
+        region[1] = top;
+        region[2] = width;
+        region[3] = height;
+        framesSinceFullFrame++;
+        fullFrame = false;
+    }
+
+    public void onTargetFound(float x1, float y1, float x2, float y2) {
+        targetX = (x1 + x2) / 2;
+        targetY = (y1 + y2) / 2;
+        targetSize = Math.max(x2 - x1, y2 - y1);
+        locked = true;
+    }
+
+    public void onTargetLost() {
+        locked = false;
+    }
+
+    public void reset() {
+        locked = false;
+        framesSinceFullFrame = 0;
+        fullFrame = true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.firekid.screentracker;
+
+import java.util.Locale;
+
+public class StageStats {
+
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public String summary() {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        long items = histogram.getCount();
+        long busyNanos = histogram.getTotalNanos();
+        return String.format(Locale.US, "%s n=%d avg=%.1fms p50=%.1fms p99=%.1fms max=%.1fms busy=%.0f%%",
+                name,
+                items,
+                items == 0 ? 0 : busyNanos / 1e6 / items,
+                histogram.getPercentileNanos(50) / 1e6,
+                histogram.getPercentileNanos(99) / 1e6,
+                histogram.getMaxNanos() / 1e6,
+                100.0 * busyNanos / elapsed);
+    }
+}
@@ -0,0 +1,187 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+
+public class TemplateTracker {
+
+    private static final int PATCH_SIZE = 24;
+    private static final int SEARCH_RADIUS = 8;
+    private static final int COARSE_STEP = 2;
+    private static final float MIN_VARIANCE = 1e-3f;
+
+    private final float[] template = new float[PATCH_SIZE * PATCH_SIZE];
+    private final int[] samples = new int[PATCH_SIZE * PATCH_SIZE];
+    private final int[] sampleOffsetX = new int[PATCH_SIZE];
+    private final int[] sampleOffsetY = new int[PATCH_SIZE];
+
+    private boolean active = false;
+    private float templateNorm;
+    private float cellWidth;
+    private float cellHeight;
+    private int boxWidth;
+    private int boxHeight;
+    private int left;
+    private int top;
+    private float confidence;
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean initialize(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                              float x1, float y1, float x2, float y2) {
+        int l = Math.max(0, (int) x1);
+        int t = Math.max(0, (int) y1);
+        int r = Math.min(width, (int) x2);
+        int b = Math.min(height, (int) y2);
+
+        if (r - l < 2 || b - t < 2) {
+            active = false;
+            return false;
+        }
+
+        boxWidth = r - l;
+        boxHeight = b - t;
+        cellWidth = boxWidth / (float) PATCH_SIZE;
+        cellHeight = boxHeight / (float) PATCH_SIZE;
+        left = l;
+        top = t;
+
+        for (int i = 0; i < PATCH_SIZE; i++) {
+            sampleOffsetX[i] = Math.min(boxWidth - 1, (int) ((i + 0.5f) * cellWidth));
+            sampleOffsetY[i] = Math.min(boxHeight - 1, (int) ((i + 0.5f) * cellHeight));
+        }
+
+        float mean = sample(pixels, rowStride, pixelStride, left, top);
+        float sumSquares = 0;
+        for (int i = 0; i < samples.length; i++) {
+            float value = samples[i] - mean;
+            template[i] = value;
+            sumSquares += value * value;
+        }
+
+        templateNorm = (float) Math.sqrt(sumSquares);
+        active = templateNorm > MIN_VARIANCE;
+        confidence = active ? 1f : 0f;
+        return active;
+    }
+
+    public float track(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride) {
+        if (!active) {
+            return 0f;
+        }
+
+        int startLeft = left;
+        int startTop = top;
+        float best = -1f;
+        int bestLeft = left;
+        int bestTop = top;
+
+        for (int dy = -SEARCH_RADIUS; dy <= SEARCH_RADIUS; dy += COARSE_STEP) {
+            for (int dx = -SEARCH_RADIUS; dx <= SEARCH_RADIUS; dx += COARSE_STEP) {
+                int candidateLeft = startLeft + Math.round(dx * cellWidth);
+                int candidateTop = startTop + Math.round(dy * cellHeight);
+                float score = score(pixels, width, height, rowStride, pixelStride, candidateLeft, candidateTop);
+                if (score > best) {
+                    best = score;
+                    bestLeft = candidateLeft;
+                    bestTop = candidateTop;
+                }
+            }
+        }
+
+        int coarseLeft = bestLeft;
+        int coarseTop = bestTop;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (dx == 0 && dy == 0) continue;
+
+                int candidateLeft = coarseLeft + Math.round(dx * cellWidth);
+                int candidateTop = coarseTop + Math.round(dy * cellHeight);
+                float score = score(pixels, width, height, rowStride, pixelStride, candidateLeft, candidateTop);
+                if (score > best) {
+                    best = score;
+                    bestLeft = candidateLeft;
+                    bestTop = candidateTop;
+                }
+            }
+        }
+
+        left = bestLeft;
+        top = bestTop;
+        confidence = Math.max(0f, best);
+        return confidence;
+    }
+
+    private float score(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride,
+                        int candidateLeft, int candidateTop) {
+        if (candidateLeft < 0 || candidateTop < 0
+                || candidateLeft + boxWidth > width || candidateTop + boxHeight > height) {
+            return -1f;
+        }
+
+        float mean = sample(pixels, rowStride, pixelStride, candidateLeft, candidateTop);
+        float cross = 0;
+        float sumSquares = 0;
+        for (int i = 0; i < samples.length; i++) {
+            float value = samples[i] - mean;
+            cross += value * template[i];
+            sumSquares += value * value;
+        }
+
+        if (sumSquares < MIN_VARIANCE) {
+            return 0f;
+        }
+        return cross / (templateNorm * (float) Math.sqrt(sumSquares));
+    }
+
+    private float sample(ByteBuffer pixels, int rowStride, int pixelStride, int sampleLeft, int sampleTop) {
+        int sum = 0;
+        int index = 0;
+        for (int y = 0; y < PATCH_SIZE; y++) {
+            int rowBase = (sampleTop + sampleOffsetY[y]) * rowStride + sampleLeft * pixelStride;
+            for (int x = 0; x < PATCH_SIZE; x++) {
+                int src = rowBase + sampleOffsetX[x] * pixelStride;
+                int luma = ((pixels.get(src) & 0xFF)
+                        + ((pixels.get(src + 1) & 0xFF) << 1)
+                        + (pixels.get(src + 2) & 0xFF)) >> 2;
+                samples[index++] = luma;
+                sum += luma;
+            }
+        }
+        return sum / (float) samples.length;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public int getCenterX() {
+        return left + boxWidth / 2;
+    }
+
+    public int getCenterY() {
+        return top + boxHeight / 2;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getRight() {
+        return left + boxWidth;
+    }
+
+    public int getBottom() {
+        return top + boxHeight;
+    }
+
+    public void reset() {
+        active = false;
+        confidence = 0f;
+    }
+}
@@ -0,0 +1,17 @@
+package com.firekid.screentracker;
+
+public enum TensorFormat {
+    FLOAT32(4),
+    UINT8(1),
+    INT8(1);
+
+    public final int bytesPerElement;
+
+    TensorFormat(int bytesPerElement) {
+        this.bytesPerElement = bytesPerElement;
+    }
+
+    public boolean isQuantized() {
+        return this != FLOAT32;
+    }
+}
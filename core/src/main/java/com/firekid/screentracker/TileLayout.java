@@ -0,0 +1,63 @@
+package com.firekid.screentracker;
+
+public class TileLayout {
+
+    private final int maxColumns;
+    private final int maxRows;
+    private final float overlap;
+
+    public final int[] left;
+    public final int[] top;
+    public final int[] width;
+    public final int[] height;
+    public int count;
+
+    public TileLayout(int maxColumns, int maxRows, float overlap) {
+        this.maxColumns = Math.max(1, maxColumns);
+        this.maxRows = Math.max(1, maxRows);
+        this.overlap = Math.max(0f, Math.min(0.9f, overlap));
+
+        int maxTiles = this.maxColumns * this.maxRows;
+        left = new int[maxTiles];
+        top = new int[maxTiles];
+        width = new int[maxTiles];
+        height = new int[maxTiles];
+    }
+
+    public int getMaxTiles() {
+        return maxColumns * maxRows;
+    }
+
+    public void compute(int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                        int tileInputWidth, int tileInputHeight) {
+        int columns = tilesAlong(regionWidth, tileInputWidth, maxColumns);
+        int rows = tilesAlong(regionHeight, tileInputHeight, maxRows);
+        int tileWidth = tileSize(regionWidth, columns);
+        int tileHeight = tileSize(regionHeight, rows);
+        float stepX = columns > 1 ? (regionWidth - tileWidth) / (float) (columns - 1) : 0f;
+        float stepY = rows > 1 ? (regionHeight - tileHeight) / (float) (rows - 1) : 0f;
+
+        count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                left[count] = regionLeft + Math.round(column * stepX);
+                top[count] = regionTop + Math.round(row * stepY);
+                width[count] = tileWidth;
+                height[count] = tileHeight;
+                count++;
+            }
+        }
+    }
+
+    private int tilesAlong(int regionSize, int tileInputSize, int maxTiles) {
+        int tiles = (int) Math.ceil(regionSize / (float) Math.max(1, tileInputSize));
+        return Math.max(1, Math.min(maxTiles, tiles));
+    }
+
+    private int tileSize(int regionSize, int tiles) {
+        if (tiles == 1) {
+            return regionSize;
+        }
+        return Math.min(regionSize, (int) Math.ceil(regionSize / (tiles - (tiles - 1) * overlap)));
+    }
+}
@@ -0,0 +1,289 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class TiledDetector implements Detector {
+
+    private static final float MERGE_OVERLAP = 0.6f;
+    private static final long CLOSE_TIMEOUT_SECONDS = 1;
+
+    private final Detector[] workers;
+    private final TileLayout preprocessLayout;
+    private final TileLayout inferenceLayout;
+    private final int tileBytes;
+    private final int maxDetections;
+    private final ExecutorService executor;
+    private final FramePreprocessor[] preprocessors;
+    private final Runnable[] tasks;
+    private final DetectionBuffer[] tileResults;
+    private final DetectionBuffer merged;
+    private final long[] order;
+    private final Map<ByteBuffer, ByteBuffer[]> slices = new IdentityHashMap<>();
+
+    private final Object lock = new Object();
+    private int pending;
+    private int activeWorkers;
+    private ByteBuffer[] currentSlices;
+
+    public TiledDetector(Detector[] workers, int columns, int rows, float overlap) {
+        this.workers = workers;
+        this.preprocessLayout = new TileLayout(columns, rows, overlap);
+        this.inferenceLayout = new TileLayout(columns, rows, overlap);
+
+        int maxTiles = inferenceLayout.getMaxTiles();
+        ByteBuffer probe = workers[0].createInputBuffer();
+        this.tileBytes = probe != null ? probe.capacity() : 0;
+        this.maxDetections = workers[0].getMaxDetections() * maxTiles;
+
+        tileResults = new DetectionBuffer[maxTiles];
+        preprocessors = new FramePreprocessor[maxTiles];
+        for (int i = 0; i < maxTiles; i++) {
+            tileResults[i] = new DetectionBuffer(workers[0].getMaxDetections());
+            preprocessors[i] = workers[0].createPreprocessor();
+        }
+        merged = new DetectionBuffer(maxDetections);
+        order = new long[maxDetections];
+
+        tasks = new Runnable[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            final int worker = i;
+            tasks[i] = new Runnable() {
+                @Override
+                public void run() {
+                    runTiles(worker);
+                }
+            };
+        }
+
+        executor = workers.length > 1 ? Executors.newFixedThreadPool(workers.length - 1, new ThreadFactory() {
+            private int created = 0;
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ScreenTrackerTile-" + (++created));
+                thread.setPriority(Thread.MAX_PRIORITY - 1);
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    public int getPoolSize() {
+        return workers.length;
+    }
+
+    public int getMaxTiles() {
+        return inferenceLayout.getMaxTiles();
+    }
+
+    @Override
+    public int getInputWidth() {
+        return workers[0].getInputWidth();
+    }
+
+    @Override
+    public int getInputHeight() {
+        return workers[0].getInputHeight();
+    }
+
+    @Override
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+
+    @Override
+    public ByteBuffer createInputBuffer() {
+        if (tileBytes == 0) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(tileBytes * inferenceLayout.getMaxTiles());
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    @Override
+    public FramePreprocessor createPreprocessor() {
+        throw new UnsupportedOperationException("Tiled input is preprocessed per tile");
+    }
+
+    @Override
+    public void setRegionMask(RegionMask mask) {
+        for (FramePreprocessor preprocessor : preprocessors) {
+            if (preprocessor != null) {
+                preprocessor.setMask(mask);
+            }
+        }
+    }
+
+    @Override
+    public void preprocess(ByteBuffer pixels, int left, int top, int width, int height,
+                           int rowStride, int pixelStride, ByteBuffer input) {
+        if (input == null || pixels == null) return;
+
+        TileLayout layout = preprocessLayout;
+        layout.compute(left, top, width, height, getInputWidth(), getInputHeight());
+        ByteBuffer[] tiles = slicesFor(input);
+        for (int t = 0; t < layout.count; t++) {
+            preprocessors[t].process(pixels, layout.left[t], layout.top[t], layout.width[t], layout.height[t],
+                    rowStride, pixelStride, tiles[t]);
+        }
+    }
+
+    @Override
+    public void runInference(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                             DetectionBuffer out) {
+        out.clear();
+        if (input == null || regionWidth == 0 || regionHeight == 0) return;
+
+        TileLayout layout = inferenceLayout;
+        layout.compute(regionLeft, regionTop, regionWidth, regionHeight, getInputWidth(), getInputHeight());
+        ByteBuffer[] tiles = slicesFor(input);
+
+        if (layout.count == 1) {
+            workers[0].runInference(tiles[0], layout.left[0], layout.top[0], layout.width[0], layout.height[0], out);
+            return;
+        }
+
+        currentSlices = tiles;
+        activeWorkers = Math.min(workers.length, layout.count);
+        synchronized (lock) {
+            pending = activeWorkers - 1;
+        }
+        for (int w = 1; w < activeWorkers; w++) {
+            executor.execute(tasks[w]);
+        }
+        runTiles(0);
+
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        merge(layout.count, out);
+    }
+
+    private void runTiles(int worker) {
+        TileLayout layout = inferenceLayout;
+        try {
+            for (int t = worker; t < layout.count; t += activeWorkers) {
+                workers[worker].runInference(currentSlices[t],
+                        layout.left[t], layout.top[t], layout.width[t], layout.height[t], tileResults[t]);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (worker != 0) {
+                synchronized (lock) {
+                    pending--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void merge(int tileCount, DetectionBuffer out) {
+        merged.clear();
+        for (int t = 0; t < tileCount; t++) {
+            DetectionBuffer tile = tileResults[t];
+            for (int i = 0; i < tile.count; i++) {
+                merged.add(tile.left[i], tile.top[i], tile.right[i], tile.bottom[i],
+                        tile.confidence[i], tile.classId[i]);
+            }
+        }
+
+        int n = merged.count;
+        for (int i = 0; i < n; i++) {
+            order[i] = ((long) Float.floatToIntBits(Math.max(0f, merged.confidence[i])) << 32) | i;
+        }
+        Arrays.sort(order, 0, n);
+
+        for (int o = n - 1; o >= 0; o--) {
+            int c = (int) order[o];
+            int duplicate = findDuplicate(c, out);
+            if (duplicate < 0) {
+                if (!out.add(merged.left[c], merged.top[c], merged.right[c], merged.bottom[c],
+                        merged.confidence[c], merged.classId[c])) {
+                    break;
+                }
+            } else {
+                out.left[duplicate] = Math.min(out.left[duplicate], merged.left[c]);
+                out.top[duplicate] = Math.min(out.top[duplicate], merged.top[c]);
+                out.right[duplicate] = Math.max(out.right[duplicate], merged.right[c]);
+                out.bottom[duplicate] = Math.max(out.bottom[duplicate], merged.bottom[c]);
+            }
+        }
+    }
+
+    private int findDuplicate(int c, DetectionBuffer out) {
+        float area = (merged.right[c] - merged.left[c]) * (merged.bottom[c] - merged.top[c]);
+        for (int k = 0; k < out.count; k++) {
+            if (out.classId[k] != merged.classId[c]) continue;
+
+            float interLeft = Math.max(out.left[k], merged.left[c]);
+            float interTop = Math.max(out.top[k], merged.top[c]);
+            float interRight = Math.min(out.right[k], merged.right[c]);
+            float interBottom = Math.min(out.bottom[k], merged.bottom[c]);
+            if (interRight <= interLeft || interBottom <= interTop) continue;
+
+            float intersection = (interRight - interLeft) * (interBottom - interTop);
+            float keptArea = (out.right[k] - out.left[k]) * (out.bottom[k] - out.top[k]);
+            float smaller = Math.min(area, keptArea);
+            if (smaller > 0f && intersection > MERGE_OVERLAP * smaller) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer[] slicesFor(ByteBuffer input) {
+        synchronized (slices) {
+            ByteBuffer[] tiles = slices.get(input);
+            if (tiles == null) {
+                tiles = new ByteBuffer[inferenceLayout.getMaxTiles()];
+                for (int t = 0; t < tiles.length; t++) {
+                    ByteBuffer view = input.duplicate();
+                    view.limit((t + 1) * tileBytes);
+                    view.position(t * tileBytes);
+                    tiles[t] = view.slice().order(ByteOrder.nativeOrder());
+                }
+                slices.put(input, tiles);
+            }
+            return tiles;
+        }
+    }
+
+    public void close() {
+        if (executor == null) return;
+
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.firekid.screentracker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+public class TrackingExporter implements Closeable {
+
+    // Little-endian memory-mapped ring of fixed-size tracking records.
+    //
+    // Header (HEADER_SIZE bytes):
+    //   0  int  magic 0x53545452 ("STTR")     16 int  screenWidth
+    //   4  int  version                        20 int  screenHeight
+    //   8  int  recordSize                     24 long writeSequence, last complete record
+    //   12 int  capacity in records            32 long epoch, creation millis, unique per session
+    //                                          40..63 reserved
+    //
+    // Record n (1-based) lives at HEADER_SIZE + ((n - 1) % capacity) * RECORD_SIZE:
+    //   0  long sequence, -n while the record is being written
+    //   8  long captureTimeNanos               36 int  targetY
+    //   16 long publishTimeNanos               40 int  panOffsetX
+    //   24 int  flags (FLAG_*)                 44 int  panOffsetY
+    //   28 int  detectionCount                 48 int  targetLeft, 52 targetTop
+    //   32 int  targetX                        56 int  targetRight, 60 targetBottom
+    //   64 long checksum, 64-bit FNV-1a of bytes 0..63 with sequence = n
+    //
+    // Coordinates are screen pixels and timestamps are monotonic nanoseconds. A reader polls
+    // writeSequence, copies record n and accepts the copy only if its sequence is n and its
+    // checksum matches; a record older than writeSequence - capacity has been overwritten. The
+    // checksum rather than store order is what rejects torn copies, since plain and volatile
+    // Java stores do not keep a mapped payload ordered against its stamp on weakly ordered CPUs.
+    //
+    // Every exporter maps a fresh file and renames it over path, so a consumer that still maps a
+    // previous session keeps a valid, frozen ring; consumers reopen path when epoch changes.
+    public static final int MAGIC = 0x53545452;
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 72;
+    public static final int WRITE_SEQUENCE_OFFSET = 24;
+    public static final int EPOCH_OFFSET = 32;
+
+    public static final int SEQUENCE = 0;
+    public static final int CAPTURE_TIME = 8;
+    public static final int PUBLISH_TIME = 16;
+    public static final int FLAGS = 24;
+    public static final int DETECTION_COUNT = 28;
+    public static final int TARGET_X = 32;
+    public static final int TARGET_Y = 36;
+    public static final int PAN_OFFSET_X = 40;
+    public static final int PAN_OFFSET_Y = 44;
+    public static final int TARGET_LEFT = 48;
+    public static final int TARGET_TOP = 52;
+    public static final int TARGET_RIGHT = 56;
+    public static final int TARGET_BOTTOM = 60;
+    public static final int CHECKSUM = 64;
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static final int FLAG_TARGET = 0x1;
+    public static final int FLAG_PAN_OFFSET = 0x2;
+
+    private static long lastEpoch;
+
+    private final File path;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long epoch;
+    private long writeSequence = 0;
+    private volatile Thread waiter;
+
+    public TrackingExporter(File path, int capacity, int screenWidth, int screenHeight) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.path = path;
+        this.capacity = capacity;
+
+        long size = HEADER_SIZE + (long) RECORD_SIZE * capacity;
+        File temp = new File(path.getPath() + ".tmp");
+        temp.delete();
+        file = new RandomAccessFile(temp, "rw");
+        try {
+            file.setLength(size);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            epoch = nextEpoch();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, capacity);
+            buffer.putInt(16, screenWidth);
+            buffer.putInt(20, screenHeight);
+            buffer.putLong(WRITE_SEQUENCE_OFFSET, 0);
+            buffer.putLong(EPOCH_OFFSET, epoch);
+            if (!temp.renameTo(path)) {
+                throw new IOException("Cannot replace " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            temp.delete();
+            throw e;
+        }
+    }
+
+    public File getPath() {
+        return path;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setWaiter(Thread waiter) {
+        this.waiter = waiter;
+    }
+
+    public TrackingRingReader newReader() {
+        return new TrackingRingReader(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public synchronized void write(FrameResult result) {
+        long sequence = writeSequence + 1;
+        int offset = HEADER_SIZE + (int) ((sequence - 1) % capacity) * RECORD_SIZE;
+
+        buffer.putLong(offset + SEQUENCE, -sequence);
+
+        boolean target = result.hasTarget;
+        boolean pan = result.hasPanOffset;
+        buffer.putLong(offset + CAPTURE_TIME, result.captureTimeNanos);
+        buffer.putLong(offset + PUBLISH_TIME, result.publishTimeNanos);
+        buffer.putInt(offset + FLAGS, (target ? FLAG_TARGET : 0) | (pan ? FLAG_PAN_OFFSET : 0));
+        buffer.putInt(offset + DETECTION_COUNT, result.detections.count);
+        buffer.putInt(offset + TARGET_X, target ? result.targetX : 0);
+        buffer.putInt(offset + TARGET_Y, target ? result.targetY : 0);
+        buffer.putInt(offset + PAN_OFFSET_X, pan ? result.panOffsetX : 0);
+        buffer.putInt(offset + PAN_OFFSET_Y, pan ? result.panOffsetY : 0);
+        buffer.putInt(offset + TARGET_LEFT, target ? Math.round(result.targetLeft) : 0);
+        buffer.putInt(offset + TARGET_TOP, target ? Math.round(result.targetTop) : 0);
+        buffer.putInt(offset + TARGET_RIGHT, target ? Math.round(result.targetRight) : 0);
+        buffer.putInt(offset + TARGET_BOTTOM, target ? Math.round(result.targetBottom) : 0);
+
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < CAPTURE_TIME; i++) {
+            hash = checksum(hash, (int) (sequence >>> (i * 8)));
+        }
+        for (int i = CAPTURE_TIME; i < CHECKSUM; i++) {
+            hash = checksum(hash, buffer.get(offset + i));
+        }
+        buffer.putLong(offset + CHECKSUM, hash);
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putLong(WRITE_SEQUENCE_OFFSET, sequence);
+        writeSequence = sequence;
+
+        Thread current = waiter;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    private static synchronized long nextEpoch() {
+        lastEpoch = Math.max(lastEpoch + 1, System.currentTimeMillis());
+        return lastEpoch;
+    }
+
+    static long checksum(long hash, int value) {
+        return (hash ^ (value & 0xFF)) * FNV_PRIME;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
@@ -0,0 +1,179 @@
+package com.firekid.screentracker;
+
+public class TrackingManager {
+
+    private static final float SMOOTHING_FACTOR = 0.3f;
+    private static final int MIN_PAN_THRESHOLD = 10;
+
+    private static final float PROCESS_NOISE = 20000f;
+    private static final float MEASUREMENT_NOISE = 16f;
+    private static final float INITIAL_VELOCITY_VARIANCE = 250000f;
+    private static final float SMOOTHING_TIME_CONSTANT = 0.04f;
+    private static final long MAX_PREDICTION_NANOS = 200_000_000L;
+    private static final long TRACK_TIMEOUT_NANOS = 500_000_000L;
+
+    private int targetMidpointX = -1;
+    private int targetMidpointY = -1;
+
+    private float currentOffsetX = 0;
+    private float currentOffsetY = 0;
+
+    private boolean hasMidpoint = false;
+
+    private boolean predictive = false;
+    private final MotionFilter filterX = new MotionFilter(PROCESS_NOISE, MEASUREMENT_NOISE, INITIAL_VELOCITY_VARIANCE);
+    private final MotionFilter filterY = new MotionFilter(PROCESS_NOISE, MEASUREMENT_NOISE, INITIAL_VELOCITY_VARIANCE);
+    private long lastMeasurementNanos = 0;
+    private long lastOutputNanos = 0;
+
+    public synchronized void setMidpoint(int x, int y) {
+        this.targetMidpointX = x;
+        this.targetMidpointY = y;
+        this.hasMidpoint = true;
+    }
+
+    public synchronized boolean hasMidpoint() {
+        return hasMidpoint;
+    }
+
+    public synchronized void setPredictive(boolean predictive) {
+        this.predictive = predictive;
+        resetMotion();
+    }
+
+    public synchronized boolean isPredictive() {
+        return predictive;
+    }
+
+    public synchronized int[] getMidpoint() {
+        if (!hasMidpoint) {
+            return null;
+        }
+        return new int[]{targetMidpointX, targetMidpointY};
+    }
+
+    public synchronized boolean getMidpoint(int[] out) {
+        if (!hasMidpoint) {
+            return false;
+        }
+        out[0] = targetMidpointX;
+        out[1] = targetMidpointY;
+        return true;
+    }
+
+    public synchronized float getOffsetX() {
+        return currentOffsetX;
+    }
+
+    public synchronized float getOffsetY() {
+        return currentOffsetY;
+    }
+
+    public synchronized void restoreOffset(float offsetX, float offsetY) {
+        this.currentOffsetX = offsetX;
+        this.currentOffsetY = offsetY;
+    }
+
+    public int[] calculatePanOffset(int objectX, int objectY) {
+        int[] out = new int[2];
+        calculatePanOffset(objectX, objectY, out);
+        return out;
+    }
+
+    public synchronized void calculatePanOffset(int objectX, int objectY, int[] out) {
+        if (targetMidpointX < 0 || targetMidpointY < 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+
+        float targetOffsetX = targetMidpointX - objectX;
+        float targetOffsetY = targetMidpointY - objectY;
+
+        currentOffsetX += (targetOffsetX - currentOffsetX) * SMOOTHING_FACTOR;
+        currentOffsetY += (targetOffsetY - currentOffsetY) * SMOOTHING_FACTOR;
+
+        writeOffset(out);
+    }
+
+    public synchronized void update(int objectX, int objectY, long timestampNanos) {
+        if (lastMeasurementNanos != 0 && timestampNanos - lastMeasurementNanos > TRACK_TIMEOUT_NANOS) {
+            resetMotion();
+        }
+        if (filterX.isInitialized() && timestampNanos <= lastMeasurementNanos) {
+            return;
+        }
+
+        float dt = filterX.isInitialized() ? (timestampNanos - lastMeasurementNanos) / 1e9f : 0f;
+        filterX.update(objectX, dt);
+        filterY.update(objectY, dt);
+        lastMeasurementNanos = timestampNanos;
+    }
+
+    public synchronized boolean estimatePanOffset(long timeNanos, int[] out) {
+        if (!canPredict(timeNanos)) {
+            return false;
+        }
+
+        float horizon = getPredictionHorizon(timeNanos);
+        writeOffset(targetMidpointX - filterX.predict(horizon), targetMidpointY - filterY.predict(horizon), out);
+        return true;
+    }
+
+    public synchronized boolean predictPanOffset(long timeNanos, int[] out) {
+        if (!canPredict(timeNanos)) {
+            return false;
+        }
+
+        float horizon = getPredictionHorizon(timeNanos);
+        float targetOffsetX = targetMidpointX - filterX.predict(horizon);
+        float targetOffsetY = targetMidpointY - filterY.predict(horizon);
+
+        if (lastOutputNanos == 0) {
+            currentOffsetX = targetOffsetX;
+            currentOffsetY = targetOffsetY;
+            lastOutputNanos = timeNanos;
+        } else if (timeNanos > lastOutputNanos) {
+            float dt = (timeNanos - lastOutputNanos) / 1e9f;
+            float alpha = 1f - (float) Math.exp(-dt / SMOOTHING_TIME_CONSTANT);
+            currentOffsetX += (targetOffsetX - currentOffsetX) * alpha;
+            currentOffsetY += (targetOffsetY - currentOffsetY) * alpha;
+            lastOutputNanos = timeNanos;
+        }
+
+        writeOffset(out);
+        return true;
+    }
+
+    private boolean canPredict(long timeNanos) {
+        return predictive && hasMidpoint && filterX.isInitialized()
+                && timeNanos - lastMeasurementNanos <= TRACK_TIMEOUT_NANOS;
+    }
+
+    private float getPredictionHorizon(long timeNanos) {
+        return Math.max(0, Math.min(MAX_PREDICTION_NANOS, timeNanos - lastMeasurementNanos)) / 1e9f;
+    }
+
+    private void writeOffset(int[] out) {
+        writeOffset(currentOffsetX, currentOffsetY, out);
+    }
+
+    private static void writeOffset(float offsetX, float offsetY, int[] out) {
+        out[0] = Math.abs(offsetX) > MIN_PAN_THRESHOLD ? (int) offsetX : 0;
+        out[1] = Math.abs(offsetY) > MIN_PAN_THRESHOLD ? (int) offsetY : 0;
+    }
+
+    private void resetMotion() {
+        filterX.reset();
+        filterY.reset();
+        lastMeasurementNanos = 0;
+        lastOutputNanos = 0;
+    }
+
+    public synchronized void reset() {
+        currentOffsetX = 0;
+        currentOffsetY = 0;
+        hasMidpoint = false;
+        resetMotion();
+    }
+}
@@ -0,0 +1,96 @@
+package com.firekid.screentracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+public class TrackingRingReader {
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+
+    public TrackingRingReader(File path) throws IOException {
+        this(map(path));
+    }
+
+    TrackingRingReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != TrackingExporter.MAGIC) {
+            throw new IllegalArgumentException("Not a tracking export");
+        }
+        if (buffer.getInt(4) != TrackingExporter.VERSION
+                || buffer.getInt(8) != TrackingExporter.RECORD_SIZE) {
+            throw new IllegalArgumentException("Unsupported tracking export version " + buffer.getInt(4));
+        }
+        this.capacity = buffer.getInt(12);
+    }
+
+    private static ByteBuffer map(File path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            ByteBuffer mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            return mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getScreenWidth() {
+        return buffer.getInt(16);
+    }
+
+    public int getScreenHeight() {
+        return buffer.getInt(20);
+    }
+
+    public long getEpoch() {
+        return buffer.getLong(TrackingExporter.EPOCH_OFFSET);
+    }
+
+    public long getWriteSequence() {
+        return buffer.getLong(TrackingExporter.WRITE_SEQUENCE_OFFSET);
+    }
+
+    public long getOldestSequence() {
+        return Math.max(1, getWriteSequence() - capacity + 1);
+    }
+
+    public void copyHeader(ByteBuffer out) {
+        for (int i = 0; i < TrackingExporter.HEADER_SIZE; i++) {
+            out.put(i, buffer.get(i));
+        }
+    }
+
+    public boolean read(long sequence, ByteBuffer out) {
+        if (sequence <= 0) return false;
+
+        int offset = TrackingExporter.HEADER_SIZE + (int) ((sequence - 1) % capacity) * TrackingExporter.RECORD_SIZE;
+        if (buffer.getLong(offset + TrackingExporter.SEQUENCE) != sequence) {
+            return false;
+        }
+
+        long hash = TrackingExporter.FNV_OFFSET;
+        for (int i = 0; i < TrackingExporter.RECORD_SIZE; i++) {
+            byte value = buffer.get(offset + i);
+            out.put(i, value);
+            if (i < TrackingExporter.CHECKSUM) {
+                hash = TrackingExporter.checksum(hash, value);
+            }
+        }
+        return getLittleEndianLong(out, TrackingExporter.SEQUENCE) == sequence
+                && getLittleEndianLong(out, TrackingExporter.CHECKSUM) == hash;
+    }
+
+    private static long getLittleEndianLong(ByteBuffer record, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (record.get(offset + i) & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,135 @@
+package com.firekid.screentracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DetectionDecoderTest {
+
+    private static final float[][] BOXES = {
+            {0f, 0f, 0.5f, 0.5f},
+            {0.02f, 0.02f, 0.52f, 0.52f},
+            {0.6f, 0.6f, 0.9f, 0.9f},
+            {0f, 0f, 0.5f, 0.5f},
+            {0.1f, 0.6f, 0.2f, 0.7f}
+    };
+    private static final float[] SCORES = {0.7f, 0.9f, 0.8f, 0.95f, 0.4f};
+    private static final int[] CLASSES = {1, 1, 1, 2, 1};
+
+    private OutputTensor boxes;
+    private OutputTensor classes;
+    private OutputTensor scores;
+    private OutputTensor count;
+    private DetectionDecoder decoder;
+    private DetectionBuffer out;
+
+    @Before
+    public void setUp() {
+        int n = SCORES.length;
+        boxes = new OutputTensor(n * 16, TensorFormat.FLOAT32, 1f, 0);
+        classes = new OutputTensor(n * 4, TensorFormat.FLOAT32, 1f, 0);
+        scores = new OutputTensor(n * 4, TensorFormat.FLOAT32, 1f, 0);
+        count = new OutputTensor(4, TensorFormat.FLOAT32, 1f, 0);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 4; j++) {
+                boxes.getBuffer().putFloat((i * 4 + j) * 4, BOXES[i][j]);
+            }
+            scores.getBuffer().putFloat(i * 4, SCORES[i]);
+            classes.getBuffer().putFloat(i * 4, CLASSES[i]);
+        }
+        count.getBuffer().putFloat(0, n);
+
+        decoder = new DetectionDecoder(0.5f);
+        out = new DetectionBuffer(10);
+    }
+
+    private void decode() {
+        decoder.decode(boxes, classes, scores, count, 10, 20, 100, 200, out);
+    }
+
+    @Test
+    public void keepsModelOrderAboveThresholdWithoutNms() {
+        decode();
+
+        assertEquals(4, out.count);
+        assertEquals(0.7f, out.confidence[0], 0f);
+        assertEquals(0.95f, out.confidence[3], 0f);
+        assertEquals(10f, out.left[0], 1e-4f);
+        assertEquals(20f, out.top[0], 1e-4f);
+        assertEquals(60f, out.right[0], 1e-4f);
+        assertEquals(120f, out.bottom[0], 1e-4f);
+    }
+
+    @Test
+    public void suppressesOverlapsWithinClassInScoreOrder() {
+        decoder.setNmsIouThreshold(0.5f);
+        decode();
+
+        assertEquals(3, out.count);
+        assertEquals(0.95f, out.confidence[0], 0f);
+        assertEquals(2, out.classId[0]);
+        assertEquals(0.9f, out.confidence[1], 0f);
+        assertEquals(1, out.classId[1]);
+        assertEquals(0.8f, out.confidence[2], 0f);
+        assertEquals(70f, out.left[2], 1e-4f);
+    }
+
+    @Test
+    public void limitsToTopKAfterSuppression() {
+        decoder.setNmsIouThreshold(0.5f);
+        decoder.setMaxResults(2);
+        decode();
+
+        assertEquals(2, out.count);
+        assertEquals(0.95f, out.confidence[0], 0f);
+        assertEquals(0.9f, out.confidence[1], 0f);
+    }
+
+    @Test
+    public void limitsToFirstKWithoutNms() {
+        decoder.setMaxResults(2);
+        decode();
+
+        assertEquals(2, out.count);
+        assertEquals(0.7f, out.confidence[0], 0f);
+        assertEquals(0.9f, out.confidence[1], 0f);
+    }
+
+    @Test
+    public void filtersByAllowedClasses() {
+        decoder.setNmsIouThreshold(0.5f);
+        decoder.setAllowedClasses(2);
+        decode();
+
+        assertEquals(1, out.count);
+        assertEquals(2, out.classId[0]);
+
+        decoder.setAllowedClasses();
+        decode();
+        assertEquals(3, out.count);
+    }
+
+    @Test
+    public void outputCapacityBoundsResults() {
+        out = new DetectionBuffer(1);
+        decoder.setNmsIouThreshold(0.5f);
+        decode();
+
+        assertEquals(1, out.count);
+        assertEquals(0.95f, out.confidence[0], 0f);
+    }
+
+    @Test
+    public void copiesSettings() {
+        decoder.setNmsIouThreshold(0.5f);
+        decoder.setMaxResults(1);
+        decoder.setAllowedClasses(1);
+        DetectionDecoder copy = new DetectionDecoder(0f);
+        copy.copySettingsFrom(decoder);
+
+        copy.decode(boxes, classes, scores, count, 0, 0, 1, 1, out);
+        assertEquals(1, out.count);
+        assertEquals(0.9f, out.confidence[0], 0f);
+    }
+}
@@ -0,0 +1,87 @@
+package com.firekid.screentracker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FakeDetector implements Detector {
+
+    private final FramePreprocessor preprocessor;
+    private final int inputSize;
+    private final int maxDetections;
+    private final long inferenceNanos;
+    private final AtomicInteger running = new AtomicInteger();
+
+    FakeDetector(int inputSize, int maxDetections) {
+        this(inputSize, TensorFormat.FLOAT32, maxDetections, 0);
+    }
+
+    FakeDetector(int inputSize, TensorFormat format, int maxDetections, long inferenceNanos) {
+        this.preprocessor = new FramePreprocessor(inputSize, inputSize, format);
+        this.inputSize = inputSize;
+        this.maxDetections = maxDetections;
+        this.inferenceNanos = inferenceNanos;
+    }
+
+    protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                          DetectionBuffer out) {
+    }
+
+    int getRunningInferences() {
+        return running.get();
+    }
+
+    @Override
+    public void setRegionMask(RegionMask mask) {
+        preprocessor.setMask(mask);
+    }
+
+    @Override
+    public FramePreprocessor createPreprocessor() {
+        return preprocessor.copy();
+    }
+
+    @Override
+    public ByteBuffer createInputBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize());
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    @Override
+    public void preprocess(ByteBuffer pixels, int left, int top, int width, int height,
+                           int rowStride, int pixelStride, ByteBuffer input) {
+        preprocessor.process(pixels, left, top, width, height, rowStride, pixelStride, input);
+    }
+
+    @Override
+    public void runInference(ByteBuffer input, int regionLeft, int regionTop, int regionWidth, int regionHeight,
+                             DetectionBuffer out) {
+        running.incrementAndGet();
+        try {
+            long deadline = System.nanoTime() + inferenceNanos;
+            while (System.nanoTime() < deadline) {
+            }
+
+            out.clear();
+            detect(input, regionLeft, regionTop, regionWidth, regionHeight, out);
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int getInputWidth() {
+        return inputSize;
+    }
+
+    @Override
+    public int getInputHeight() {
+        return inputSize;
+    }
+
+    @Override
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+}
@@ -0,0 +1,118 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FramePipelineTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    @Test
+    public void legacyModePublishesPanOffset() {
+        TrackingManager tracking = new TrackingManager();
+        tracking.setMidpoint(10, 10);
+        FrameResult result = runFrames(tracking, 3, 1_000_000_000L);
+
+        assertTrue(result.hasTarget);
+        assertTrue(result.hasPanOffset);
+        assertTrue(result.panOffsetX < 0);
+    }
+
+    @Test
+    public void predictiveModeExportsModelOffsetWithoutSmoothing() {
+        TrackingManager tracking = new TrackingManager();
+        tracking.setMidpoint(10, 10);
+        tracking.setPredictive(true);
+        FrameResult result = runFrames(tracking, 3, System.nanoTime());
+
+        assertTrue(result.hasTarget);
+        assertTrue(result.hasPanOffset);
+        assertEquals(0f, tracking.getOffsetX(), 0f);
+        assertEquals(0f, tracking.getOffsetY(), 0f);
+
+        int[] expected = new int[2];
+        assertTrue(tracking.estimatePanOffset(result.publishTimeNanos, expected));
+        assertEquals(expected[0], result.panOffsetX);
+        assertEquals(expected[1], result.panOffsetY);
+        assertTrue(result.panOffsetX < 0);
+
+        int[] offset = new int[2];
+        assertTrue(tracking.predictPanOffset(result.captureTimeNanos, offset));
+        assertEquals(10 - result.targetX, offset[0]);
+    }
+
+    @Test
+    public void predictiveModeOmitsStaleOffset() {
+        TrackingManager tracking = new TrackingManager();
+        tracking.setMidpoint(10, 10);
+        tracking.setPredictive(true);
+        FrameResult result = runFrames(tracking, 3, 1_000_000_000L);
+
+        assertTrue(result.hasTarget);
+        assertFalse(result.hasPanOffset);
+    }
+
+    @Test
+    public void midpointChangeRelocksOnStaticScreen() {
+        TrackingManager tracking = new TrackingManager();
+        tracking.setMidpoint(5, 5);
+        FramePipeline pipeline = new FramePipeline(new FakeDetector(8, 4) {
+            @Override
+            protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth,
+                                  int regionHeight, DetectionBuffer out) {
+                out.add(0, 0, 10, 10, 0.9f, 1);
+                out.add(40, 30, 50, 40, 0.9f, 1);
+            }
+        }, tracking, new FramePipeline.Listener() {
+            @Override
+            public void onFrameResult(long sequence) {
+            }
+        }, false);
+
+        ByteBuffer pixels = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        long time = 1_000_000_000L;
+        for (int f = 0; f < 3; f++) {
+            pipeline.submitFrame(pixels, WIDTH, HEIGHT, WIDTH * 4, 4, time += 33_333_333L);
+        }
+        assertEquals(5, pipeline.acquireResult().targetX);
+
+        tracking.setMidpoint(45, 35);
+        pipeline.onMidpointChanged();
+        for (int f = 0; f < 2; f++) {
+            pipeline.submitFrame(pixels, WIDTH, HEIGHT, WIDTH * 4, 4, time += 33_333_333L);
+        }
+        FrameResult result = pipeline.acquireResult();
+        assertTrue(result.hasTarget);
+        assertEquals(45, result.targetX);
+        assertEquals(35, result.targetY);
+    }
+
+    private static FrameResult runFrames(TrackingManager tracking, int frames, long startNanos) {
+        FramePipeline pipeline = new FramePipeline(new FakeDetector(8, 4) {
+            @Override
+            protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth,
+                                  int regionHeight, DetectionBuffer out) {
+                out.add(40, 30, 50, 40, 0.9f, 1);
+            }
+        }, tracking, new FramePipeline.Listener() {
+            @Override
+            public void onFrameResult(long sequence) {
+            }
+        }, false);
+
+        ByteBuffer pixels = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        for (int f = 0; f < frames; f++) {
+            for (int i = 0; i < pixels.capacity(); i++) {
+                pixels.put(i, (byte) (f * 40 + i));
+            }
+            pipeline.submitFrame(pixels, WIDTH, HEIGHT, WIDTH * 4, 4, startNanos + f * 33_333_333L);
+        }
+        return pipeline.acquireResult();
+    }
+}
@@ -0,0 +1,98 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+public class FramePreprocessorTest {
+
+    @Test
+    public void uint8UnitRangeIsIdentity() {
+        byte[] table = FramePreprocessor.createQuantizationTable(TensorFormat.UINT8, 1f / 255f, 0);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, table[i] & 0xFF);
+        }
+    }
+
+    @Test
+    public void uint8SignedRangeTracksPixelValue() {
+        byte[] table = FramePreprocessor.createQuantizationTable(TensorFormat.UINT8, 1f / 128f, 128);
+        assertEquals(0, table[0] & 0xFF);
+        assertEquals(255, table[255] & 0xFF);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, table[i] & 0xFF, 1);
+        }
+    }
+
+    @Test
+    public void int8RangesMapBlackToMinimum() {
+        byte[] unit = FramePreprocessor.createQuantizationTable(TensorFormat.INT8, 1f / 255f, -128);
+        byte[] signed = FramePreprocessor.createQuantizationTable(TensorFormat.INT8, 1f / 128f, 0);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i - 128, unit[i]);
+            assertEquals(i - 128, signed[i], 1);
+        }
+        assertEquals(-128, signed[0]);
+        assertEquals(127, signed[255]);
+    }
+
+    @Test
+    public void pixelRangeUsesUnitScale() {
+        byte[] table = FramePreprocessor.createQuantizationTable(TensorFormat.INT8, 1f, -128);
+        assertEquals(-128, table[0]);
+        assertEquals(127, table[255]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnrecognizedRange() {
+        FramePreprocessor.createQuantizationTable(TensorFormat.UINT8, 0.5f, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveScale() {
+        FramePreprocessor.createQuantizationTable(TensorFormat.UINT8, 0f, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroPointOutsideType() {
+        FramePreprocessor.createQuantizationTable(TensorFormat.INT8, 1f / 255f, 128);
+    }
+
+    @Test
+    public void quantizedProcessUsesTableAndMasksWithBlack() {
+        FramePreprocessor preprocessor =
+                new FramePreprocessor(2, 2, TensorFormat.INT8, 1f / 128f, 0);
+        preprocessor.setMask(RegionMask.NONE.withExclusion(0, 0, 2, 1));
+        ByteBuffer pixels = ByteBuffer.allocateDirect(2 * 2 * 4);
+        for (int i = 0; i < pixels.capacity(); i++) {
+            pixels.put(i, (byte) 200);
+        }
+        ByteBuffer output = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize()).order(ByteOrder.nativeOrder());
+
+        preprocessor.process(pixels, 2, 2, 8, 4, output);
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(-128, output.get(i));
+        }
+        for (int i = 6; i < 12; i++) {
+            assertEquals(72, output.get(i), 1);
+        }
+    }
+
+    @Test
+    public void floatProcessNormalizesToUnitRange() {
+        FramePreprocessor preprocessor = new FramePreprocessor(1, 1);
+        ByteBuffer pixels = ByteBuffer.allocateDirect(4);
+        pixels.put(0, (byte) 255).put(1, (byte) 0).put(2, (byte) 51);
+        ByteBuffer output = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize()).order(ByteOrder.nativeOrder());
+
+        preprocessor.process(pixels, 1, 1, 4, 4, output);
+
+        assertEquals(1f, output.getFloat(0), 0f);
+        assertEquals(0f, output.getFloat(4), 0f);
+        assertEquals(0.2f, output.getFloat(8), 1e-6f);
+    }
+}
@@ -0,0 +1,82 @@
+package com.firekid.screentracker;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FrameReplayerTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int FRAMES = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File recordingFile;
+
+    @Before
+    public void setUp() throws IOException {
+        recordingFile = folder.newFile("test.frames");
+        ByteBuffer pixels = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        try (FrameRecorder recorder = new FrameRecorder(recordingFile, WIDTH, HEIGHT, FRAMES)) {
+            for (int f = 0; f < FRAMES; f++) {
+                for (int i = 0; i < pixels.capacity(); i++) {
+                    pixels.put(i, (byte) (f * 20 + i % 7));
+                }
+                recorder.record(pixels, WIDTH, HEIGHT, WIDTH * 4, 4, 1_000_000_000L + f * 33_333_333L);
+            }
+        }
+    }
+
+    @Test
+    public void replayIsDeterministic() throws Exception {
+        FrameReplayer.Report first = replay(false);
+        FrameReplayer.Report second = replay(false);
+
+        assertEquals(FRAMES, first.frames);
+        assertEquals(first.results, second.results);
+        assertEquals(first.checksum, second.checksum);
+    }
+
+    @Test
+    public void interruptStopsReplay() throws Exception {
+        try (FrameRecording recording = new FrameRecording(recordingFile)) {
+            FrameReplayer replayer = new FrameReplayer(recording, brightnessDetector(), new TrackingManager());
+            Thread.currentThread().interrupt();
+            try {
+                replayer.run(false);
+                fail("Replay should stop when interrupted");
+            } catch (InterruptedException expected) {
+                assertEquals(0, replayer.getMetrics().getCaptured());
+            }
+        }
+    }
+
+    private FrameReplayer.Report replay(boolean realTime) throws Exception {
+        try (FrameRecording recording = new FrameRecording(recordingFile)) {
+            TrackingManager tracking = new TrackingManager();
+            tracking.setMidpoint(WIDTH / 2, HEIGHT / 2);
+            return new FrameReplayer(recording, brightnessDetector(), tracking).run(realTime);
+        }
+    }
+
+    private static Detector brightnessDetector() {
+        return new FakeDetector(8, 4) {
+            @Override
+            protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth,
+                                  int regionHeight, DetectionBuffer out) {
+                float shift = input.getFloat(0) * 20;
+                out.add(regionLeft + shift, regionTop + 4, regionLeft + shift + 10, regionTop + 14, 0.9f, 1);
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class FrameResultExchangeTest {
+
+    private static final long PUBLISHES = 3_000_000L;
+
+    @Test
+    public void acquireReturnsLatestPublished() {
+        FrameResultExchange exchange = new FrameResultExchange(4);
+        assertEquals(0, exchange.acquire().sequence);
+
+        for (long s = 1; s <= 3; s++) {
+            exchange.getBackBuffer().sequence = s;
+            exchange.publish();
+        }
+
+        FrameResult result = exchange.acquire();
+        assertEquals(3, result.sequence);
+        assertSame(result, exchange.acquire());
+    }
+
+    @Test
+    public void backBufferNeverAliasesFront() {
+        FrameResultExchange exchange = new FrameResultExchange(4);
+        for (int i = 0; i < 10; i++) {
+            exchange.getBackBuffer().sequence = i + 1;
+            exchange.publish();
+            FrameResult front = exchange.acquire();
+            assertEquals(i + 1, front.sequence);
+            assertNotSame(front, exchange.getBackBuffer());
+        }
+    }
+
+    @Test
+    public void concurrentPublishIsNeverTornOrStale() throws InterruptedException {
+        final FrameResultExchange exchange = new FrameResultExchange(8);
+        Thread publisher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long s = 1; s <= PUBLISHES; s++) {
+                    FrameResult result = exchange.getBackBuffer();
+                    result.detections.clear();
+                    for (int i = 0; i < (int) (s % 8); i++) {
+                        result.detections.add(s, s, s, s, 1f, (int) s);
+                    }
+                    result.sequence = s;
+                    result.captureTimeNanos = s;
+                    result.panOffsetX = (int) s;
+                    result.panOffsetY = (int) -s;
+                    exchange.publish();
+                }
+            }
+        });
+        publisher.start();
+
+        long torn = 0;
+        long regressions = 0;
+        long last = 0;
+        while (last < PUBLISHES) {
+            FrameResult result = exchange.acquire();
+            long s = result.sequence;
+            if (s < last) regressions++;
+            last = s;
+            if (s == 0) continue;
+
+            if (result.captureTimeNanos != s || result.panOffsetX != (int) s || result.panOffsetY != (int) -s
+                    || result.detections.count != (int) (s % 8)) {
+                torn++;
+            }
+            for (int i = 0; i < result.detections.count; i++) {
+                if (result.detections.classId[i] != (int) s) torn++;
+            }
+        }
+        publisher.join();
+
+        assertEquals(0, torn);
+        assertEquals(0, regressions);
+        assertEquals(PUBLISHES, last);
+    }
+}
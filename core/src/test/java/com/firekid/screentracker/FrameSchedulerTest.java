@@ -0,0 +1,54 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameSchedulerTest {
+
+    @Test
+    public void delayCountsDownToNextFrame() {
+        FrameScheduler scheduler = new FrameScheduler();
+        assertEquals(0, scheduler.getDelayNanos(1_000L));
+        assertTrue(scheduler.shouldProcess(1_000L));
+
+        long interval = scheduler.getIntervalNanos();
+        assertFalse(scheduler.shouldProcess(1_000L + interval / 2));
+        assertEquals(interval / 2, scheduler.getDelayNanos(1_000L + interval / 2));
+        assertEquals(0, scheduler.getDelayNanos(1_000L + interval));
+        assertTrue(scheduler.shouldProcess(1_000L + interval));
+    }
+
+    @Test
+    public void thermalFactorStretchesInterval() {
+        FrameScheduler scheduler = new FrameScheduler();
+        long base = scheduler.getIntervalNanos();
+
+        scheduler.setThermalFactor(2.5f);
+        assertEquals((long) (base * 2.5f), scheduler.getIntervalNanos());
+
+        scheduler.setThermalFactor(0.5f);
+        assertEquals(base, scheduler.getIntervalNanos());
+    }
+
+    @Test
+    public void bottleneckStageBoundsIntervalInsteadOfLatency() {
+        FrameScheduler scheduler = new FrameScheduler();
+        scheduler.onFrameResult(true, true, 0, 0);
+        scheduler.onFrameResult(true, true, 100, 100);
+
+        scheduler.onPreprocessTime(10_000_000L);
+        scheduler.onInferenceTime(40_000_000L);
+        scheduler.onFrameLatency(50_000_000L);
+        assertEquals(40_000_000L, scheduler.getIntervalNanos());
+
+        FrameScheduler backlogged = new FrameScheduler();
+        backlogged.onFrameResult(true, true, 0, 0);
+        backlogged.onFrameResult(true, true, 100, 100);
+        backlogged.onInferenceTime(40_000_000L);
+        backlogged.onFrameLatency(200_000_000L);
+        assertEquals(100_000_000L, backlogged.getIntervalNanos());
+    }
+}
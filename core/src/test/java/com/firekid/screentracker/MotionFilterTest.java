@@ -0,0 +1,63 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MotionFilterTest {
+
+    private static MotionFilter newFilter() {
+        return new MotionFilter(20000f, 16f, 250000f);
+    }
+
+    @Test
+    public void firstMeasurementInitializesAtRest() {
+        MotionFilter filter = newFilter();
+        assertFalse(filter.isInitialized());
+
+        filter.update(100f, 0.5f);
+
+        assertTrue(filter.isInitialized());
+        assertEquals(0f, filter.getVelocity(), 0f);
+        assertEquals(100f, filter.predict(1f), 0f);
+    }
+
+    @Test
+    public void convergesOnConstantVelocity() {
+        MotionFilter filter = newFilter();
+        float dt = 1f / 30f;
+        for (int i = 0; i < 60; i++) {
+            filter.update(100f + 600f * i * dt, dt);
+        }
+
+        assertEquals(600f, filter.getVelocity(), 5f);
+        float now = 100f + 600f * 59 * dt;
+        assertEquals(now + 600f * 0.08f, filter.predict(0.08f), 2f);
+    }
+
+    @Test
+    public void staysStillOnStationaryTarget() {
+        MotionFilter filter = newFilter();
+        for (int i = 0; i < 30; i++) {
+            filter.update(250f, 1f / 30f);
+        }
+
+        assertEquals(0f, filter.getVelocity(), 1e-3f);
+        assertEquals(250f, filter.predict(0.2f), 1e-2f);
+    }
+
+    @Test
+    public void resetDropsMotionState() {
+        MotionFilter filter = newFilter();
+        filter.update(0f, 0f);
+        filter.update(20f, 0.033f);
+        filter.reset();
+
+        assertFalse(filter.isInitialized());
+        filter.update(500f, 0.033f);
+        assertEquals(0f, filter.getVelocity(), 0f);
+        assertEquals(500f, filter.predict(0.1f), 0f);
+    }
+}
@@ -0,0 +1,110 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RegionMaskTest {
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        RegionMask mask = RegionMask.NONE.withActiveArea(100, 200, 900, 1800)
+                .withExclusion(0, 0, 50, 60)
+                .withExclusion(700, 1700, 650, 1600);
+
+        RegionMask decoded = RegionMask.decode(mask.encode());
+
+        int[] rect = new int[4];
+        assertTrue(decoded.getActiveArea(rect));
+        assertArrayEquals(new int[]{100, 200, 900, 1800}, rect);
+        assertEquals(2, decoded.getExclusionCount());
+        decoded.getExclusion(0, rect);
+        assertArrayEquals(new int[]{0, 0, 50, 60}, rect);
+        decoded.getExclusion(1, rect);
+        assertArrayEquals(new int[]{650, 1600, 700, 1700}, rect);
+        assertEquals(mask.encode(), decoded.encode());
+    }
+
+    @Test
+    public void exclusionsOnlyRoundTripWithoutActiveArea() {
+        RegionMask mask = RegionMask.NONE.withExclusion(10, 20, 30, 40);
+
+        RegionMask decoded = RegionMask.decode(mask.encode());
+
+        assertFalse(decoded.hasActiveArea());
+        assertEquals(1, decoded.getExclusionCount());
+        assertSame(RegionMask.NONE, RegionMask.decode(""));
+        assertSame(RegionMask.NONE, RegionMask.decode(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsPartialRectangle() {
+        RegionMask.decode("1,2,3,4,5,6");
+    }
+
+    @Test
+    public void confineIntersectsRegionWithActiveArea() {
+        RegionMask mask = RegionMask.NONE.withActiveArea(100, 100, 500, 2000);
+        int[] region = {0, 0, 1080, 2400};
+
+        mask.confine(1080, 2400, region);
+        assertArrayEquals(new int[]{100, 100, 400, 1900}, region);
+
+        region = new int[]{400, 1900, 300, 300};
+        mask.confine(1080, 2400, region);
+        assertArrayEquals(new int[]{400, 1900, 100, 100}, region);
+    }
+
+    @Test
+    public void confineFallsBackToActiveAreaWhenDisjoint() {
+        RegionMask mask = RegionMask.NONE.withActiveArea(100, 100, 500, 2600);
+        int[] region = {700, 0, 200, 200};
+
+        mask.confine(1080, 2400, region);
+        assertArrayEquals(new int[]{100, 100, 400, 2300}, region);
+    }
+
+    @Test
+    public void confineWithoutActiveAreaLeavesRegion() {
+        int[] region = {10, 20, 30, 40};
+        RegionMask.NONE.withExclusion(0, 0, 100, 100).confine(1080, 2400, region);
+        assertArrayEquals(new int[]{10, 20, 30, 40}, region);
+    }
+
+    @Test
+    public void filterDropsDetectionsCenteredInExclusions() {
+        RegionMask mask = RegionMask.NONE.withExclusion(0, 0, 100, 100).withExclusion(500, 500, 600, 600);
+        DetectionBuffer detections = new DetectionBuffer(4);
+        detections.add(10, 10, 50, 50, 0.9f, 1);
+        detections.add(80, 80, 200, 200, 0.8f, 2);
+        detections.add(520, 520, 560, 560, 0.7f, 3);
+        detections.add(300, 300, 400, 400, 0.6f, 4);
+
+        mask.filter(detections);
+
+        assertEquals(2, detections.count);
+        assertEquals(2, detections.classId[0]);
+        assertEquals(0.8f, detections.confidence[0], 0f);
+        assertEquals(4, detections.classId[1]);
+        assertEquals(300f, detections.left[1], 0f);
+    }
+
+    @Test
+    public void toCaptureMapsOutward() {
+        RegionMask mask = RegionMask.NONE.withActiveArea(101, 101, 299, 299).withExclusion(0, 0, 1080, 99);
+        CaptureTransform transform = new CaptureTransform(1080, 2400, 540, 1200);
+
+        RegionMask capture = mask.toCapture(transform);
+
+        int[] rect = new int[4];
+        capture.getActiveArea(rect);
+        assertArrayEquals(new int[]{50, 50, 150, 150}, rect);
+        capture.getExclusion(0, rect);
+        assertArrayEquals(new int[]{0, 0, 540, 50}, rect);
+        assertSame(mask, mask.toCapture(CaptureTransform.identity(1080, 2400)));
+    }
+}
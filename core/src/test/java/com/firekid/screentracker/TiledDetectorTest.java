@@ -0,0 +1,77 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TiledDetectorTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 400;
+    private static final long INFERENCE_NANOS = 20_000_000L;
+
+    @Test
+    public void everyTileIsPreprocessedWithTheMask() {
+        FakeDetector[] workers = {new FakeDetector(100, TensorFormat.UINT8, 4, 0)};
+        TiledDetector detector = new TiledDetector(workers, 2, 2, 0f);
+        RegionMask mask = RegionMask.NONE.withExclusion(0, 0, WIDTH, 50).withExclusion(150, 250, 300, 350);
+        detector.setRegionMask(mask);
+
+        ByteBuffer pixels = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        Random random = new Random(3);
+        for (int i = 0; i < pixels.capacity(); i++) {
+            pixels.put(i, (byte) random.nextInt(256));
+        }
+        ByteBuffer input = detector.createInputBuffer();
+        for (int frame = 0; frame < 2; frame++) {
+            detector.preprocess(pixels, 0, 0, WIDTH, HEIGHT, WIDTH * 4, 4, input);
+        }
+
+        TileLayout layout = new TileLayout(2, 2, 0f);
+        layout.compute(0, 0, WIDTH, HEIGHT, 100, 100);
+        FramePreprocessor reference = new FramePreprocessor(100, 100, TensorFormat.UINT8);
+        reference.setMask(mask);
+        ByteBuffer expected = ByteBuffer.allocateDirect(reference.getInputBufferSize());
+        int tileBytes = expected.capacity();
+        assertEquals(4, layout.count);
+        for (int t = 0; t < layout.count; t++) {
+            reference.process(pixels, layout.left[t], layout.top[t], layout.width[t], layout.height[t],
+                    WIDTH * 4, 4, expected);
+            for (int i = 0; i < tileBytes; i++) {
+                assertEquals(expected.get(i), input.get(t * tileBytes + i));
+            }
+        }
+        detector.close();
+    }
+
+    @Test
+    public void interruptedInferenceWaitsForEveryTile() {
+        FakeDetector[] workers = new FakeDetector[4];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new FakeDetector(100, TensorFormat.FLOAT32, 4, INFERENCE_NANOS) {
+                @Override
+                protected void detect(ByteBuffer input, int regionLeft, int regionTop, int regionWidth,
+                                      int regionHeight, DetectionBuffer out) {
+                    out.add(regionLeft, regionTop, regionLeft + 10, regionTop + 10, 0.9f, 0);
+                }
+            };
+        }
+        TiledDetector detector = new TiledDetector(workers, 2, 2, 0f);
+        ByteBuffer input = detector.createInputBuffer();
+        DetectionBuffer out = new DetectionBuffer(detector.getMaxDetections());
+
+        Thread.currentThread().interrupt();
+        detector.runInference(input, 0, 0, WIDTH, HEIGHT, out);
+
+        assertTrue(Thread.interrupted());
+        for (FakeDetector worker : workers) {
+            assertEquals(0, worker.getRunningInferences());
+        }
+        assertEquals(4, out.count);
+        detector.close();
+    }
+}
@@ -0,0 +1,201 @@
+package com.firekid.screentracker;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrackingExporterTest {
+
+    private static final int WRITES = 500_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void headerDescribesRing() throws IOException {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        try (TrackingExporter exporter = new TrackingExporter(file, 16, 1080, 2400)) {
+            ByteBuffer header = ByteBuffer.allocate(TrackingExporter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            TrackingRingReader reader = new TrackingRingReader(file);
+            reader.copyHeader(header);
+
+            assertEquals(TrackingExporter.HEADER_SIZE + 16L * TrackingExporter.RECORD_SIZE, file.length());
+            assertEquals(TrackingExporter.MAGIC, header.getInt(0));
+            assertEquals(TrackingExporter.VERSION, header.getInt(4));
+            assertEquals(TrackingExporter.RECORD_SIZE, header.getInt(8));
+            assertEquals(16, header.getInt(12));
+            assertEquals(1080, header.getInt(16));
+            assertEquals(2400, header.getInt(20));
+            assertEquals(0, header.getLong(TrackingExporter.WRITE_SEQUENCE_OFFSET));
+            assertEquals(exporter.getEpoch(), header.getLong(TrackingExporter.EPOCH_OFFSET));
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+        }
+    }
+
+    @Test
+    public void recordRoundTrips() throws IOException {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        try (TrackingExporter exporter = new TrackingExporter(file, 4, 1080, 2400)) {
+            exporter.write(result(1));
+            TrackingRingReader reader = new TrackingRingReader(file);
+            ByteBuffer record = ByteBuffer.allocate(TrackingExporter.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            assertEquals(1, reader.getWriteSequence());
+            assertTrue(reader.read(1, record));
+            assertEquals(1, record.getLong(TrackingExporter.SEQUENCE));
+            assertEquals(TrackingExporter.FLAG_TARGET | TrackingExporter.FLAG_PAN_OFFSET,
+                    record.getInt(TrackingExporter.FLAGS));
+            assertConsistent(1, record);
+            assertFalse(reader.read(2, record));
+        }
+    }
+
+    @Test
+    public void overwrittenRecordsAreRejected() throws IOException {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        try (TrackingExporter exporter = new TrackingExporter(file, 4, 1080, 2400)) {
+            for (int i = 1; i <= 6; i++) {
+                exporter.write(result(i));
+            }
+            TrackingRingReader reader = exporter.newReader();
+            ByteBuffer record = ByteBuffer.allocate(TrackingExporter.RECORD_SIZE);
+
+            assertEquals(3, reader.getOldestSequence());
+            assertFalse(reader.read(1, record));
+            assertFalse(reader.read(2, record));
+            for (int i = 3; i <= 6; i++) {
+                assertTrue(reader.read(i, record));
+            }
+        }
+    }
+
+    @Test
+    public void corruptedRecordFailsChecksum() throws IOException {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        try (TrackingExporter exporter = new TrackingExporter(file, 4, 1080, 2400)) {
+            exporter.write(result(1));
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                MappedByteBuffer mapped = raw.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raw.length());
+                int offset = TrackingExporter.HEADER_SIZE + TrackingExporter.TARGET_X;
+                mapped.put(offset, (byte) (mapped.get(offset) + 1));
+            }
+
+            assertFalse(exporter.newReader().read(1, ByteBuffer.allocate(TrackingExporter.RECORD_SIZE)));
+        }
+    }
+
+    @Test
+    public void newSessionLeavesMappedRingIntact() throws IOException {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        TrackingRingReader previous;
+        long previousEpoch;
+        try (TrackingExporter exporter = new TrackingExporter(file, 64, 1080, 2400)) {
+            exporter.write(result(1));
+            previous = new TrackingRingReader(file);
+            previousEpoch = exporter.getEpoch();
+        }
+
+        try (TrackingExporter exporter = new TrackingExporter(file, 2, 1080, 2400)) {
+            ByteBuffer record = ByteBuffer.allocate(TrackingExporter.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            assertTrue(previous.read(1, record));
+            assertConsistent(1, record);
+            assertEquals(previousEpoch, previous.getEpoch());
+
+            TrackingRingReader current = new TrackingRingReader(file);
+            assertNotEquals(previousEpoch, current.getEpoch());
+            assertEquals(exporter.getEpoch(), current.getEpoch());
+            assertEquals(2, current.getCapacity());
+            assertEquals(0, current.getWriteSequence());
+        }
+    }
+
+    @Test
+    public void concurrentReaderNeverAcceptsTornRecord() throws Exception {
+        File file = new File(folder.getRoot(), "tracking.ring");
+        try (final TrackingExporter exporter = new TrackingExporter(file, 8, 1080, 2400)) {
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        FrameResult result = new FrameResult(1);
+                        for (int i = 1; i <= WRITES; i++) {
+                            fill(result, i);
+                            exporter.write(result);
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            }, "TrackingExporterTestWriter");
+
+            TrackingRingReader reader = new TrackingRingReader(file);
+            ByteBuffer record = ByteBuffer.allocate(TrackingExporter.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            long accepted = 0;
+            writer.start();
+            while (writer.isAlive() || reader.getWriteSequence() < WRITES) {
+                long written = reader.getWriteSequence();
+                for (long sequence = reader.getOldestSequence(); sequence <= written; sequence++) {
+                    if (reader.read(sequence, record)) {
+                        assertConsistent(sequence, record);
+                        accepted++;
+                    }
+                }
+            }
+            writer.join();
+
+            assertEquals(null, failure.get());
+            assertEquals(WRITES, reader.getWriteSequence());
+            assertTrue(accepted > 0);
+        }
+    }
+
+    private static FrameResult result(int sequence) {
+        FrameResult result = new FrameResult(1);
+        fill(result, sequence);
+        return result;
+    }
+
+    private static void fill(FrameResult result, int sequence) {
+        result.hasTarget = true;
+        result.hasPanOffset = true;
+        result.captureTimeNanos = sequence * 3L;
+        result.publishTimeNanos = sequence * 5L;
+        result.targetX = sequence;
+        result.targetY = -sequence;
+        result.panOffsetX = sequence * 7;
+        result.panOffsetY = -sequence * 7;
+        result.targetLeft = sequence - 10;
+        result.targetTop = sequence - 20;
+        result.targetRight = sequence + 10;
+        result.targetBottom = sequence + 20;
+    }
+
+    private static void assertConsistent(long sequence, ByteBuffer record) {
+        int value = (int) sequence;
+        assertEquals(sequence * 3, record.getLong(TrackingExporter.CAPTURE_TIME));
+        assertEquals(sequence * 5, record.getLong(TrackingExporter.PUBLISH_TIME));
+        assertEquals(value, record.getInt(TrackingExporter.TARGET_X));
+        assertEquals(-value, record.getInt(TrackingExporter.TARGET_Y));
+        assertEquals(value * 7, record.getInt(TrackingExporter.PAN_OFFSET_X));
+        assertEquals(-value * 7, record.getInt(TrackingExporter.PAN_OFFSET_Y));
+        assertEquals(value - 10, record.getInt(TrackingExporter.TARGET_LEFT));
+        assertEquals(value - 20, record.getInt(TrackingExporter.TARGET_TOP));
+        assertEquals(value + 10, record.getInt(TrackingExporter.TARGET_RIGHT));
+        assertEquals(value + 20, record.getInt(TrackingExporter.TARGET_BOTTOM));
+    }
+}
@@ -0,0 +1,102 @@
+package com.firekid.screentracker;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrackingManagerTest {
+
+    private static final long FRAME_NANOS = 33_333_333L;
+    private static final long LATENCY_NANOS = 80_000_000L;
+    private static final float SPEED = 600f;
+
+    @Test
+    public void predictiveModeCutsDisplayLagOnMovingTarget() {
+        TrackingManager predictive = new TrackingManager();
+        predictive.setMidpoint(500, 500);
+        predictive.setPredictive(true);
+        TrackingManager legacy = new TrackingManager();
+        legacy.setMidpoint(500, 500);
+
+        int[] offset = new int[2];
+        Random random = new Random(1);
+        long start = 1_000_000_000L;
+        double predictiveError = 0;
+        double legacyError = 0;
+        int samples = 0;
+
+        for (int i = 0; i < 120; i++) {
+            long capture = start + i * FRAME_NANOS;
+            long display = capture + LATENCY_NANOS;
+            int measured = Math.round(100 + SPEED * (capture - start) / 1e9f + (float) random.nextGaussian() * 3);
+            float actual = 100 + SPEED * (display - start) / 1e9f;
+
+            predictive.update(measured, 500, capture);
+            assertTrue(predictive.predictPanOffset(display, offset));
+            float predictiveX = 500 - offset[0];
+
+            legacy.calculatePanOffset(measured, 500, offset);
+            float legacyX = 500 - offset[0];
+
+            if (i > 20) {
+                predictiveError += Math.abs(predictiveX - actual);
+                legacyError += Math.abs(legacyX - actual);
+                samples++;
+            }
+        }
+
+        predictiveError /= samples;
+        legacyError /= samples;
+        assertTrue("predictive error " + predictiveError, predictiveError < 20);
+        assertTrue("legacy error " + legacyError, legacyError > 90);
+    }
+
+    @Test
+    public void predictionRequiresPredictiveModeAndRecentMeasurement() {
+        TrackingManager manager = new TrackingManager();
+        manager.setMidpoint(500, 500);
+        int[] offset = new int[2];
+
+        manager.update(300, 300, 1_000_000_000L);
+        assertFalse(manager.predictPanOffset(1_010_000_000L, offset));
+
+        manager.setPredictive(true);
+        manager.update(300, 300, 1_000_000_000L);
+        assertTrue(manager.predictPanOffset(1_010_000_000L, offset));
+        assertArrayEquals(new int[]{200, 200}, offset);
+
+        assertFalse(manager.predictPanOffset(1_600_000_000L, offset));
+    }
+
+    @Test
+    public void ignoresOutOfOrderMeasurements() {
+        TrackingManager manager = new TrackingManager();
+        manager.setMidpoint(500, 500);
+        manager.setPredictive(true);
+        int[] offset = new int[2];
+
+        manager.update(300, 300, 2_000_000_000L);
+        manager.update(100, 100, 1_900_000_000L);
+        assertTrue(manager.predictPanOffset(2_000_000_000L, offset));
+        assertArrayEquals(new int[]{200, 200}, offset);
+    }
+
+    @Test
+    public void legacyOffsetIgnoresSmallMovement() {
+        TrackingManager manager = new TrackingManager();
+        manager.setMidpoint(500, 500);
+
+        int[] offset = manager.calculatePanOffset(520, 470);
+        assertArrayEquals(new int[]{0, 0}, offset);
+        assertEquals(-6f, manager.getOffsetX(), 1e-4f);
+
+        manager.calculatePanOffset(600, 500, offset);
+        assertEquals(-34, offset[0]);
+        assertEquals(0, offset[1]);
+    }
+}
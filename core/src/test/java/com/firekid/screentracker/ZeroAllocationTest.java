@@ -0,0 +1,113 @@
+package com.firekid.screentracker;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZeroAllocationTest {
+
+    private static final int FRAME_WIDTH = 1080;
+    private static final int FRAME_HEIGHT = 2400;
+    private static final int INPUT_SIZE = 300;
+    private static final int MAX_DETECTIONS = 100;
+    private static final int WARMUP_FRAMES = 5_000;
+    private static final int MEASURED_FRAMES = 500;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void preprocessAndDecodeDoNotAllocate() {
+        assertSteadyStateAllocation(TensorFormat.FLOAT32, 0f, null);
+    }
+
+    @Test
+    public void quantizedPreprocessAndNmsDecodeDoNotAllocate() {
+        assertSteadyStateAllocation(TensorFormat.UINT8, 0.5f, null);
+    }
+
+    @Test
+    public void maskedPreprocessDoesNotAllocate() {
+        RegionMask mask = RegionMask.NONE.withExclusion(0, 0, FRAME_WIDTH, 120)
+                .withExclusion(800, 2000, FRAME_WIDTH, FRAME_HEIGHT);
+        assertSteadyStateAllocation(TensorFormat.INT8, 0.5f, mask);
+    }
+
+    private static void assertSteadyStateAllocation(TensorFormat format, float nmsIou, RegionMask mask) {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+
+        ByteBuffer pixels = ByteBuffer.allocateDirect(FRAME_WIDTH * FRAME_HEIGHT * 4);
+        Random random = new Random(7);
+        for (int i = 0; i < pixels.capacity(); i++) {
+            pixels.put(i, (byte) random.nextInt(256));
+        }
+
+        FramePreprocessor preprocessor = new FramePreprocessor(INPUT_SIZE, INPUT_SIZE, format);
+        preprocessor.setMask(mask);
+        ByteBuffer input = ByteBuffer.allocateDirect(preprocessor.getInputBufferSize());
+        input.order(ByteOrder.nativeOrder());
+
+        OutputTensor boxes = new OutputTensor(MAX_DETECTIONS * 4 * 4, TensorFormat.FLOAT32, 1f, 0);
+        OutputTensor classes = new OutputTensor(MAX_DETECTIONS * 4, TensorFormat.FLOAT32, 1f, 0);
+        OutputTensor scores = new OutputTensor(MAX_DETECTIONS * 4, TensorFormat.FLOAT32, 1f, 0);
+        OutputTensor count = new OutputTensor(4, TensorFormat.FLOAT32, 1f, 0);
+        for (int i = 0; i < MAX_DETECTIONS; i++) {
+            float y = random.nextFloat() * 0.8f;
+            float x = random.nextFloat() * 0.8f;
+            boxes.getBuffer().putFloat(i * 16, y);
+            boxes.getBuffer().putFloat(i * 16 + 4, x);
+            boxes.getBuffer().putFloat(i * 16 + 8, y + 0.1f);
+            boxes.getBuffer().putFloat(i * 16 + 12, x + 0.1f);
+            classes.getBuffer().putFloat(i * 4, random.nextInt(5));
+            scores.getBuffer().putFloat(i * 4, random.nextFloat());
+        }
+        count.getBuffer().putFloat(0, MAX_DETECTIONS);
+
+        DetectionDecoder decoder = new DetectionDecoder(0.3f);
+        decoder.setNmsIouThreshold(nmsIou);
+        decoder.setMaxResults(10);
+        DetectionBuffer out = new DetectionBuffer(MAX_DETECTIONS);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            runFrame(preprocessor, pixels, input, decoder, boxes, classes, scores, count, out, i);
+        }
+
+        long overhead = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS && allocated != 0; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                runFrame(preprocessor, pixels, input, decoder, boxes, classes, scores, count, out, i);
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - before - overhead);
+        }
+
+        assertTrue(out.count > 0);
+        assertEquals("Bytes allocated over " + MEASURED_FRAMES + " frames", 0, allocated);
+    }
+
+    private static void runFrame(FramePreprocessor preprocessor, ByteBuffer pixels, ByteBuffer input,
+                                 DetectionDecoder decoder, OutputTensor boxes, OutputTensor classes,
+                                 OutputTensor scores, OutputTensor count, DetectionBuffer out, int frame) {
+        int left = (frame & 1) * 64;
+        preprocessor.process(pixels, left, 0, FRAME_WIDTH - 128, FRAME_HEIGHT, FRAME_WIDTH * 4, 4, input);
+        decoder.decode(boxes, classes, scores, count, left, 0, FRAME_WIDTH - 128, FRAME_HEIGHT, out);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}